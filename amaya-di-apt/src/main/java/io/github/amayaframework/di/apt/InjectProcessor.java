@@ -0,0 +1,337 @@
+package io.github.amayaframework.di.apt;
+
+import javax.annotation.processing.*;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * An annotation processor that moves the work of {@code ReflectionSchemeFactory} and stub factories
+ * to compile time. For each class marked with {@code @Inject} (or containing marked members) it generates
+ * a factory class {@code <ClassName>_AmayaFactory} in the same package, which creates the class scheme by
+ * exact member lookup and instantiates the class with plain java code.
+ * <br>
+ * At the end of the compilation, a pair of {@code GeneratedSchemeFactory} and {@code GeneratedStubFactory}
+ * dispatching to these factories is generated in the package specified by the {@value #PACKAGE_OPTION} option
+ * (by default, {@value #DEFAULT_PACKAGE}). Both accept an optional fallback factory, which is used for classes
+ * that have not been processed.
+ * <br>
+ * The selection rules are the same as the {@code ReflectionSchemeFactory} rules for the {@code @Inject} annotation.
+ * Violations are reported as compilation errors, except for the classes that may legally be not injectable
+ * (abstract or non-public ones), which are silently skipped unless marked with {@code @Inject} directly.
+ * Classes without public constructors or depending on type variables are skipped with a warning
+ * and left to the fallback factories.
+ */
+@SupportedAnnotationTypes(InjectProcessor.INJECT)
+@SupportedOptions(InjectProcessor.PACKAGE_OPTION)
+public final class InjectProcessor extends AbstractProcessor {
+    /**
+     * The name of the option that specifies the package of the generated scheme and stub factories.
+     */
+    public static final String PACKAGE_OPTION = "amaya.di.package";
+    /**
+     * The default package of the generated scheme and stub factories.
+     */
+    public static final String DEFAULT_PACKAGE = "io.github.amayaframework.di.generated";
+    static final String INJECT = "io.github.amayaframework.di.Inject";
+
+    private final List<TypeElement> processed = new ArrayList<>();
+    private SourceGenerator generator;
+    private boolean written;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        this.generator = new SourceGenerator(processingEnv);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    private static boolean isAnnotated(Element element) {
+        for (var mirror : element.getAnnotationMirrors()) {
+            var type = (TypeElement) mirror.getAnnotationType().asElement();
+            if (type.getQualifiedName().contentEquals(INJECT)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isPublic(Element element) {
+        return element.getModifiers().contains(Modifier.PUBLIC);
+    }
+
+    private static boolean isStatic(Element element) {
+        return element.getModifiers().contains(Modifier.STATIC);
+    }
+
+    private static String checkClass(TypeElement type) {
+        if (type.getKind() != ElementKind.CLASS) {
+            return "Cannot create scheme of non-class type";
+        }
+        if (!isPublic(type)) {
+            return "Cannot create scheme of non-public class";
+        }
+        if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+            return "Cannot create scheme of abstract class";
+        }
+        var nesting = type.getNestingKind();
+        if (nesting == NestingKind.ANONYMOUS || nesting == NestingKind.LOCAL) {
+            return "Cannot create scheme of local or anonymous class";
+        }
+        if (nesting == NestingKind.MEMBER && !isStatic(type)) {
+            return "Cannot create scheme of non-static member class";
+        }
+        return null;
+    }
+
+    private static boolean isReachable(TypeElement type) {
+        // The generated factory pair lives in another package, so all enclosing classes must be public
+        Element current = type;
+        while (current instanceof TypeElement) {
+            if (!isPublic(current)) {
+                return false;
+            }
+            current = current.getEnclosingElement();
+        }
+        return true;
+    }
+
+    private static boolean isSupported(TypeMirror type) {
+        switch (type.getKind()) {
+            case ARRAY:
+                return isSupported(((ArrayType) type).getComponentType());
+            case DECLARED:
+                var declared = (DeclaredType) type;
+                for (var argument : declared.getTypeArguments()) {
+                    if (!isSupported(argument)) {
+                        return false;
+                    }
+                }
+                var enclosing = declared.getEnclosingType();
+                return enclosing.getKind() != TypeKind.DECLARED || isSupported(enclosing);
+            case WILDCARD:
+                var bound = ((WildcardType) type).getExtendsBound();
+                return bound == null || isSupported(bound);
+            default:
+                return type.getKind().isPrimitive();
+        }
+    }
+
+    private static boolean isSupported(ExecutableElement executable) {
+        for (var parameter : executable.getParameters()) {
+            if (!isSupported(parameter.asType())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private ExecutableElement findConstructor(TypeElement type) throws ProcessingException {
+        var constructors = ElementFilter
+                .constructorsIn(type.getEnclosedElements())
+                .stream()
+                .filter(InjectProcessor::isPublic)
+                .collect(Collectors.toList());
+        if (constructors.isEmpty()) {
+            return null;
+        }
+        ExecutableElement ret;
+        if (constructors.size() == 1) {
+            ret = constructors.get(0);
+        } else {
+            var found = constructors
+                    .stream()
+                    .filter(InjectProcessor::isAnnotated)
+                    .collect(Collectors.toList());
+            if (found.isEmpty()) {
+                throw new ProcessingException("There are no annotated constructors", type);
+            }
+            if (found.size() != 1) {
+                throw new ProcessingException("It is impossible to select a constructor", type);
+            }
+            ret = found.get(0);
+        }
+        if (!ret.getTypeParameters().isEmpty()) {
+            throw new ProcessingException("Cannot use parameterized constructor", ret);
+        }
+        return ret;
+    }
+
+    private List<VariableElement> findFields(TypeElement type) {
+        var members = processingEnv.getElementUtils().getAllMembers(type);
+        return ElementFilter
+                .fieldsIn(members)
+                .stream()
+                .filter(field -> isPublic(field)
+                        && !isStatic(field)
+                        && !field.getModifiers().contains(Modifier.FINAL)
+                        && isAnnotated(field))
+                .collect(Collectors.toList());
+    }
+
+    private boolean checkMethod(ExecutableElement method) {
+        if (!isPublic(method) || !isAnnotated(method)) {
+            return false;
+        }
+        var parameters = method.getParameters().size();
+        if (isStatic(method)) {
+            return parameters > 1;
+        }
+        return parameters > 0;
+    }
+
+    private List<ExecutableElement> findMethods(TypeElement type) throws ProcessingException {
+        var types = processingEnv.getTypeUtils();
+        var members = processingEnv.getElementUtils().getAllMembers(type);
+        var ret = new ArrayList<ExecutableElement>();
+        for (var method : ElementFilter.methodsIn(members)) {
+            if (!checkMethod(method)) {
+                continue;
+            }
+            if (!method.getTypeParameters().isEmpty()) {
+                throw new ProcessingException("Cannot use parameterized method", method);
+            }
+            if (isStatic(method)) {
+                var first = types.erasure(method.getParameters().get(0).asType());
+                if (!types.isAssignable(types.erasure(type.asType()), first)) {
+                    throw new ProcessingException(
+                            "The first parameter of the static method must be the superclass of the current class",
+                            method
+                    );
+                }
+            }
+            ret.add(method);
+        }
+        return ret;
+    }
+
+    private InjectTarget inspect(TypeElement type) throws ProcessingException {
+        var problem = checkClass(type);
+        if (problem != null) {
+            // Abstract bases with annotated members are fine, complain only about explicitly marked classes
+            if (isAnnotated(type)) {
+                throw new ProcessingException(problem, type);
+            }
+            return null;
+        }
+        var constructor = findConstructor(type);
+        if (constructor == null) {
+            // The class may still be instantiated by user code, so do not break the compilation
+            warn("No public constructor was found, the scheme will not be generated", type);
+            return null;
+        }
+        var fields = findFields(type);
+        var methods = findMethods(type);
+        var supported = isSupported(constructor)
+                && fields.stream().allMatch(field -> isSupported(field.asType()))
+                && methods.stream().allMatch(InjectProcessor::isSupported);
+        if (!supported) {
+            warn("The class depends on type variables, the scheme will not be generated", type);
+            return null;
+        }
+        if (!isReachable(type)) {
+            warn("The class is not accessible from the generated code, the scheme will not be generated", type);
+            return null;
+        }
+        return new InjectTarget(type, constructor, fields, methods);
+    }
+
+    private void warn(String message, Element element) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, message, element);
+    }
+
+    private void error(String message, Element element) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private Set<TypeElement> collect(RoundEnvironment roundEnv, TypeElement inject) {
+        var ret = new LinkedHashSet<TypeElement>();
+        for (var element : roundEnv.getElementsAnnotatedWith(inject)) {
+            if (element instanceof TypeElement) {
+                ret.add((TypeElement) element);
+                continue;
+            }
+            var enclosing = element.getEnclosingElement();
+            if (enclosing instanceof TypeElement) {
+                ret.add((TypeElement) enclosing);
+            }
+        }
+        return ret;
+    }
+
+    private void writeFactories() {
+        var options = processingEnv.getOptions();
+        var name = options.getOrDefault(PACKAGE_OPTION, DEFAULT_PACKAGE);
+        try {
+            generator.writeFactories(name, processed);
+        } catch (IOException e) {
+            error("Cannot write generated factories: " + e.getMessage(), null);
+        }
+        written = true;
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            if (!written && !processed.isEmpty()) {
+                writeFactories();
+            }
+            return false;
+        }
+        var inject = processingEnv.getElementUtils().getTypeElement(INJECT);
+        if (inject == null) {
+            return false;
+        }
+        var found = collect(roundEnv, inject);
+        if (found.isEmpty()) {
+            // The round after the one that generated the last factories, so the pair can be written
+            // without the "created in the last round" warning
+            if (!written && !processed.isEmpty()) {
+                writeFactories();
+            }
+            return false;
+        }
+        for (var type : found) {
+            if (written) {
+                error("The class appeared after the generated factories were written", type);
+                continue;
+            }
+            try {
+                var target = inspect(type);
+                if (target == null) {
+                    continue;
+                }
+                generator.writeFactory(target);
+                processed.add(type);
+            } catch (ProcessingException e) {
+                error(e.getMessage(), e.element);
+            } catch (IOException e) {
+                error("Cannot write generated factory: " + e.getMessage(), type);
+            }
+        }
+        // Do not claim the annotation, other processors may also be interested in it
+        return false;
+    }
+
+    private static final class ProcessingException extends Exception {
+        final Element element;
+
+        ProcessingException(String message, Element element) {
+            super(message);
+            this.element = element;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package io.github.amayaframework.di.apt;
+
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import java.util.List;
+
+/**
+ * A compile-time counterpart of the class scheme: the class and its members selected for injection.
+ */
+final class InjectTarget {
+    final TypeElement element;
+    final ExecutableElement constructor;
+    final List<VariableElement> fields;
+    final List<ExecutableElement> methods;
+
+    InjectTarget(TypeElement element,
+                 ExecutableElement constructor,
+                 List<VariableElement> fields,
+                 List<ExecutableElement> methods) {
+        this.element = element;
+        this.constructor = constructor;
+        this.fields = fields;
+        this.methods = methods;
+    }
+}
@@ -0,0 +1,346 @@
+package io.github.amayaframework.di.apt;
+
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.*;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.*;
+
+/**
+ * Writes the java sources of the generated factories.
+ * All names in the generated code are fully qualified, so it cannot clash with user classes.
+ */
+final class SourceGenerator {
+    static final String FACTORY_SUFFIX = "_AmayaFactory";
+    static final String SCHEME_FACTORY = "GeneratedSchemeFactory";
+    static final String STUB_FACTORY = "GeneratedStubFactory";
+    private static final String TYPE = "java.lang.reflect.Type";
+    private static final String TYPES = "com.github.romanqed.jtype.Types";
+    private static final String INTERNER = "io.github.amayaframework.di.scheme.TypeInterner";
+    private static final String FUNCTION = "com.github.romanqed.jfunc.Function0";
+    private static final String SCHEME = "io.github.amayaframework.di.scheme";
+    private static final String PROVIDER = "io.github.amayaframework.di.stub.TypeProvider";
+
+    private final Elements elements;
+    private final Types types;
+    private final Filer filer;
+
+    SourceGenerator(ProcessingEnvironment environment) {
+        this.elements = environment.getElementUtils();
+        this.types = environment.getTypeUtils();
+        this.filer = environment.getFiler();
+    }
+
+    private String getPackage(TypeElement type) {
+        return elements.getPackageOf(type).getQualifiedName().toString();
+    }
+
+    private String getFactoryName(TypeElement type) {
+        var pkg = getPackage(type);
+        var binary = elements.getBinaryName(type).toString();
+        var name = pkg.isEmpty() ? binary : binary.substring(pkg.length() + 1);
+        return name.replace('$', '_') + FACTORY_SUFFIX;
+    }
+
+    private String getQualifiedFactoryName(TypeElement type) {
+        var pkg = getPackage(type);
+        var name = getFactoryName(type);
+        return pkg.isEmpty() ? name : pkg + "." + name;
+    }
+
+    private static boolean isGeneric(TypeMirror type) {
+        if (type.getKind() == TypeKind.ARRAY) {
+            return isGeneric(((ArrayType) type).getComponentType());
+        }
+        if (type.getKind() != TypeKind.DECLARED) {
+            return false;
+        }
+        var declared = (DeclaredType) type;
+        return !declared.getTypeArguments().isEmpty() || isGeneric(declared.getEnclosingType());
+    }
+
+    private String renderErasure(TypeMirror type) {
+        var erasure = types.erasure(type);
+        switch (erasure.getKind()) {
+            case ARRAY:
+                return renderErasure(((ArrayType) erasure).getComponentType()) + "[]";
+            case DECLARED:
+                var element = (TypeElement) ((DeclaredType) erasure).asElement();
+                return element.getQualifiedName().toString();
+            default:
+                return erasure.getKind().name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private String renderOwner(DeclaredType type) {
+        var enclosing = type.getEnclosingType();
+        if (enclosing.getKind() == TypeKind.DECLARED) {
+            return renderType(enclosing);
+        }
+        var element = (TypeElement) type.asElement();
+        if (element.getNestingKind() == NestingKind.MEMBER) {
+            return renderErasure(element.getEnclosingElement().asType()) + ".class";
+        }
+        return "null";
+    }
+
+    // Renders the expression creating the type in the same way as the ReflectionTypeProcessor would process it
+    private String renderType(TypeMirror type) {
+        switch (type.getKind()) {
+            case ARRAY:
+                var component = ((ArrayType) type).getComponentType();
+                if (isGeneric(component)) {
+                    return TYPES + ".of(" + renderType(component) + ")";
+                }
+                return renderErasure(type) + ".class";
+            case DECLARED:
+                var declared = (DeclaredType) type;
+                if (!isGeneric(declared)) {
+                    return renderErasure(type) + ".class";
+                }
+                var builder = new StringBuilder(TYPES)
+                        .append(".ofOwned(")
+                        .append(renderOwner(declared))
+                        .append(", ")
+                        .append(renderErasure(type))
+                        .append(".class");
+                for (var argument : declared.getTypeArguments()) {
+                    builder.append(", ").append(renderType(argument));
+                }
+                return builder.append(')').toString();
+            case WILDCARD:
+                var bound = ((WildcardType) type).getExtendsBound();
+                return bound == null ? "java.lang.Object.class" : renderType(bound);
+            default:
+                return renderErasure(type) + ".class";
+        }
+    }
+
+    private static List<? extends VariableElement> getDependencies(ExecutableElement executable) {
+        var parameters = executable.getParameters();
+        // The first parameter of the static method is the injected object itself
+        if (executable.getModifiers().contains(Modifier.STATIC)) {
+            return parameters.subList(1, parameters.size());
+        }
+        return parameters;
+    }
+
+    private String renderTypes(Map<String, String> constants, List<? extends VariableElement> parameters) {
+        var ret = new StringJoiner(", ");
+        for (var parameter : parameters) {
+            ret.add(constants.get(renderType(parameter.asType())));
+        }
+        return ret.toString();
+    }
+
+    private String renderSet(Map<String, String> constants, List<? extends VariableElement> parameters) {
+        var found = new LinkedHashSet<String>();
+        for (var parameter : parameters) {
+            found.add(constants.get(renderType(parameter.asType())));
+        }
+        return "java.util.Set.of(" + String.join(", ", found) + ")";
+    }
+
+    private String renderErasures(List<? extends VariableElement> parameters) {
+        var ret = new StringJoiner(", ");
+        for (var parameter : parameters) {
+            ret.add(renderErasure(parameter.asType()) + ".class");
+        }
+        return ret.toString();
+    }
+
+    private String renderArguments(Map<String, String> constants, List<? extends VariableElement> parameters) {
+        var ret = new StringJoiner(", ");
+        for (var parameter : parameters) {
+            var constant = constants.get(renderType(parameter.asType()));
+            ret.add("(" + renderErasure(parameter.asType()) + ") d" + constant.substring(1) + ".invoke()");
+        }
+        return ret.toString();
+    }
+
+    private Map<String, String> collectConstants(InjectTarget target) {
+        var ret = new LinkedHashMap<String, String>();
+        var all = new ArrayList<TypeMirror>();
+        target.constructor.getParameters().forEach(parameter -> all.add(parameter.asType()));
+        target.fields.forEach(field -> all.add(field.asType()));
+        target.methods.forEach(method -> getDependencies(method).forEach(parameter -> all.add(parameter.asType())));
+        for (var type : all) {
+            ret.computeIfAbsent(renderType(type), key -> "T" + ret.size());
+        }
+        return ret;
+    }
+
+    private void writeScheme(PrintWriter out, InjectTarget target, Map<String, String> constants) {
+        var name = target.element.getQualifiedName();
+        var constructor = target.constructor.getParameters();
+        out.println("    public static " + SCHEME + ".ClassScheme scheme() {");
+        out.println("        java.lang.Class<?> clazz = " + name + ".class;");
+        out.println("        try {");
+        out.println("            " + SCHEME + ".ConstructorScheme constructor = new " + SCHEME + ".ConstructorScheme(");
+        out.println("                    clazz.getConstructor(" + renderErasures(constructor) + "),");
+        out.println("                    " + renderSet(constants, constructor) + ",");
+        out.println("                    new " + TYPE + "[]{" + renderTypes(constants, constructor) + "}");
+        out.println("            );");
+        var fields = new StringJoiner(",\n                    ", "\n                    ", "\n            ");
+        fields.setEmptyValue("");
+        for (var field : target.fields) {
+            fields.add("new " + SCHEME + ".FieldScheme(clazz.getField(\"" + field.getSimpleName() + "\"), "
+                    + constants.get(renderType(field.asType())) + ")");
+        }
+        out.println("            java.util.Set<" + SCHEME + ".FieldScheme> fields = java.util.Set.of(" + fields + ");");
+        var methods = new StringJoiner(",\n                    ", "\n                    ", "\n            ");
+        methods.setEmptyValue("");
+        for (var method : target.methods) {
+            var dependencies = getDependencies(method);
+            methods.add("new " + SCHEME + ".MethodScheme(\n"
+                    + "                            clazz.getMethod(\"" + method.getSimpleName() + "\", "
+                    + renderErasures(method.getParameters()) + "),\n"
+                    + "                            " + renderSet(constants, dependencies) + ",\n"
+                    + "                            new " + TYPE + "[]{" + renderTypes(constants, dependencies) + "}\n"
+                    + "                    )");
+        }
+        out.println("            java.util.Set<" + SCHEME + ".MethodScheme> methods = java.util.Set.of(" + methods + ");");
+        out.println("            return new " + SCHEME + ".ClassScheme(clazz, constructor, fields, methods);");
+        out.println("        } catch (java.lang.ReflectiveOperationException e) {");
+        out.println("            throw new " + SCHEME + ".IllegalClassException(");
+        out.println("                    \"The generated scheme does not match the compiled class\", clazz");
+        out.println("            );");
+        out.println("        }");
+        out.println("    }");
+    }
+
+    private void writeStub(PrintWriter out, InjectTarget target, Map<String, String> constants) {
+        var name = target.element.getQualifiedName();
+        out.println("    @java.lang.SuppressWarnings({\"unchecked\", \"rawtypes\", \"cast\"})");
+        out.println("    public static " + FUNCTION + "<java.lang.Object> stub(" + PROVIDER + " provider) {");
+        for (var constant : constants.values()) {
+            out.println("        " + FUNCTION + "<java.lang.Object> d" + constant.substring(1)
+                    + " = provider.apply(" + constant + ");");
+        }
+        out.println("        return () -> {");
+        out.println("            " + name + " ret = new " + name + "("
+                + renderArguments(constants, target.constructor.getParameters()) + ");");
+        for (var field : target.fields) {
+            out.println("            ret." + field.getSimpleName() + " = "
+                    + renderArguments(constants, List.of(field)) + ";");
+        }
+        for (var method : target.methods) {
+            var arguments = renderArguments(constants, getDependencies(method));
+            if (method.getModifiers().contains(Modifier.STATIC)) {
+                // Static methods are called through the target class, since the declaring one may be inaccessible
+                out.println("            " + name + "." + method.getSimpleName() + "(ret, " + arguments + ");");
+            } else {
+                out.println("            ret." + method.getSimpleName() + "(" + arguments + ");");
+            }
+        }
+        out.println("            return ret;");
+        out.println("        };");
+        out.println("    }");
+    }
+
+    void writeFactory(InjectTarget target) throws IOException {
+        var element = target.element;
+        var pkg = getPackage(element);
+        var name = getFactoryName(element);
+        var constants = collectConstants(target);
+        var file = filer.createSourceFile(getQualifiedFactoryName(element), element);
+        try (var out = new PrintWriter(file.openWriter())) {
+            if (!pkg.isEmpty()) {
+                out.println("package " + pkg + ";");
+                out.println();
+            }
+            out.println("/**");
+            out.println(" * The generated scheme and instantiator factory for {@link " + element.getQualifiedName() + "}.");
+            out.println(" */");
+            out.println("public final class " + name + " {");
+            for (var entry : constants.entrySet()) {
+                var type = entry.getKey();
+                // Generic types are interned, as the ReflectionTypeProcessor does
+                if (!type.endsWith(".class")) {
+                    type = INTERNER + ".intern(" + type + ")";
+                }
+                out.println("    private static final " + TYPE + " " + entry.getValue() + " = " + type + ";");
+            }
+            if (!constants.isEmpty()) {
+                out.println();
+            }
+            out.println("    private " + name + "() {");
+            out.println("    }");
+            out.println();
+            writeScheme(out, target, constants);
+            out.println();
+            writeStub(out, target, constants);
+            out.println("}");
+        }
+    }
+
+    private void writeDispatch(PrintWriter out, List<TypeElement> processed, String method, String result) {
+        out.println("        switch (clazz.getName()) {");
+        for (var type : processed) {
+            out.println("            case \"" + elements.getBinaryName(type) + "\":");
+            // Equal names do not mean the same class, so check the identity too
+            out.println("                if (clazz == " + type.getQualifiedName() + ".class) {");
+            out.println("                    return " + getQualifiedFactoryName(type) + "." + method + ";");
+            out.println("                }");
+            out.println("                break;");
+        }
+        out.println("        }");
+        out.println("        if (fallback == null) {");
+        out.println("            throw new " + SCHEME + ".IllegalClassException(\"" + result + "\", clazz);");
+        out.println("        }");
+    }
+
+    private void writeHeader(PrintWriter out, String pkg, String name, String type, String description) {
+        out.println("package " + pkg + ";");
+        out.println();
+        out.println("/**");
+        out.println(" * The generated " + description + ".");
+        out.println(" */");
+        out.println("public final class " + name + " implements " + type + " {");
+        out.println("    private final " + type + " fallback;");
+        out.println();
+        out.println("    public " + name + "(" + type + " fallback) {");
+        out.println("        this.fallback = fallback;");
+        out.println("    }");
+        out.println();
+        out.println("    public " + name + "() {");
+        out.println("        this(null);");
+        out.println("    }");
+        out.println();
+        out.println("    @java.lang.Override");
+    }
+
+    void writeFactories(String pkg, List<TypeElement> processed) throws IOException {
+        var origins = processed.toArray(new Element[0]);
+        var schemeType = SCHEME + ".SchemeFactory";
+        var schemes = filer.createSourceFile(pkg + "." + SCHEME_FACTORY, origins);
+        try (var out = new PrintWriter(schemes.openWriter())) {
+            writeHeader(out, pkg, SCHEME_FACTORY, schemeType, "scheme factory");
+            out.println("    public " + SCHEME + ".ClassScheme create(java.lang.Class<?> clazz) {");
+            writeDispatch(out, processed, "scheme()", "No generated scheme was found");
+            out.println("        return fallback.create(clazz);");
+            out.println("    }");
+            out.println("}");
+        }
+        var stubType = "io.github.amayaframework.di.stub.StubFactory";
+        var stubs = filer.createSourceFile(pkg + "." + STUB_FACTORY, origins);
+        try (var out = new PrintWriter(stubs.openWriter())) {
+            writeHeader(out, pkg, STUB_FACTORY, stubType, "stub factory");
+            out.println("    public " + FUNCTION + "<?> create(" + SCHEME + ".ClassScheme scheme, "
+                    + PROVIDER + " provider) {");
+            out.println("        java.lang.Class<?> clazz = scheme.getTarget();");
+            writeDispatch(out, processed, "stub(provider)", "No generated stub was found");
+            out.println("        return fallback.create(scheme, provider);");
+            out.println("    }");
+            out.println("}");
+        }
+    }
+}
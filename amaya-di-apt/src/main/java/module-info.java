@@ -0,0 +1,8 @@
+module io.github.amayaframework.di.apt {
+    // Imports
+    requires java.compiler;
+    // Exports
+    exports io.github.amayaframework.di.apt;
+    // Services
+    provides javax.annotation.processing.Processor with io.github.amayaframework.di.apt.InjectProcessor;
+}
@@ -0,0 +1,233 @@
+package io.github.amayaframework.di.apt;
+
+import com.github.romanqed.jfunc.Function0;
+import com.github.romanqed.jtype.Types;
+import io.github.amayaframework.di.Inject;
+import io.github.amayaframework.di.ProviderBuilders;
+import io.github.amayaframework.di.scheme.ClassScheme;
+import io.github.amayaframework.di.scheme.IllegalClassException;
+import io.github.amayaframework.di.scheme.ReflectionSchemeFactory;
+import io.github.amayaframework.di.scheme.SchemeFactory;
+import io.github.amayaframework.di.stub.StubFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.tools.*;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+
+public class InjectProcessorTest extends Assertions {
+    private static final Map<String, String> SOURCES = Map.of(
+            "test.Repository", "package test;\n" +
+                    "public class Repository {}\n",
+            "test.Service", "package test;\n" +
+                    "import io.github.amayaframework.di.Inject;\n" +
+                    "@Inject\n" +
+                    "public class Service {\n" +
+                    "    public final Repository repository;\n" +
+                    "    public Service(Repository repository) { this.repository = repository; }\n" +
+                    "}\n",
+            "test.Base", "package test;\n" +
+                    "import io.github.amayaframework.di.Inject;\n" +
+                    "public abstract class Base {\n" +
+                    "    @Inject\n" +
+                    "    public Repository inherited;\n" +
+                    "    public Object staticValue;\n" +
+                    "    @Inject\n" +
+                    "    public static void setStatic(Base base, java.util.List<? extends Number> value) {\n" +
+                    "        base.staticValue = value;\n" +
+                    "    }\n" +
+                    "}\n",
+            "test.App", "package test;\n" +
+                    "import io.github.amayaframework.di.Inject;\n" +
+                    "import java.util.List;\n" +
+                    "public class App extends Base {\n" +
+                    "    public final Service service;\n" +
+                    "    public List<String>[] array;\n" +
+                    "    @Inject\n" +
+                    "    public Service field;\n" +
+                    "    public App() { this.service = null; }\n" +
+                    "    @Inject\n" +
+                    "    public App(Service service, Service duplicate) { this.service = service; }\n" +
+                    "    @Inject\n" +
+                    "    public void setArray(List<String>[] array) { this.array = array; }\n" +
+                    "    public static class Nested {\n" +
+                    "        @Inject\n" +
+                    "        public int value;\n" +
+                    "    }\n" +
+                    "}\n",
+            "test.Generic", "package test;\n" +
+                    "import io.github.amayaframework.di.Inject;\n" +
+                    "public class Generic<T> {\n" +
+                    "    @Inject\n" +
+                    "    public T value;\n" +
+                    "}\n"
+    );
+
+    private static String getLocation(Class<?> clazz) throws URISyntaxException {
+        var source = clazz.getProtectionDomain().getCodeSource();
+        return Path.of(source.getLocation().toURI()).toString();
+    }
+
+    private static List<Diagnostic<? extends JavaFileObject>> compile(Map<String, String> sources,
+                                                                      Path output,
+                                                                      String... options) throws Exception {
+        var compiler = ToolProvider.getSystemJavaCompiler();
+        var diagnostics = new DiagnosticCollector<JavaFileObject>();
+        var classpath = String.join(
+                File.pathSeparator,
+                getLocation(Inject.class),
+                getLocation(Types.class),
+                getLocation(Function0.class)
+        );
+        var arguments = new ArrayList<>(List.of("-classpath", classpath, "-d", output.toString()));
+        arguments.addAll(List.of(options));
+        var units = sources
+                .entrySet()
+                .stream()
+                .map(entry -> new Source(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+        var task = compiler.getTask(null, null, diagnostics, arguments, null, units);
+        task.setProcessors(List.of(new InjectProcessor()));
+        task.call();
+        return diagnostics.getDiagnostics();
+    }
+
+    private static List<String> getMessages(List<Diagnostic<? extends JavaFileObject>> diagnostics,
+                                            Diagnostic.Kind kind) {
+        return diagnostics
+                .stream()
+                .filter(diagnostic -> diagnostic.getKind() == kind)
+                .map(diagnostic -> diagnostic.getMessage(Locale.ROOT))
+                .collect(Collectors.toList());
+    }
+
+    private static void assertSchemeEquals(ClassScheme expected, ClassScheme actual) {
+        assertEquals(expected.getTarget(), actual.getTarget());
+        assertEquals(expected.getTypes(), actual.getTypes());
+        var constructor = expected.getConstructorScheme();
+        assertEquals(constructor.getTarget(), actual.getConstructorScheme().getTarget());
+        assertArrayEquals(constructor.getMapping(), actual.getConstructorScheme().getMapping());
+        assertEquals(expected.getFieldSchemes(), actual.getFieldSchemes());
+        assertEquals(expected.getMethodSchemes(), actual.getMethodSchemes());
+        var mappings = new HashMap<Object, List<Type>>();
+        expected.getMethodSchemes().forEach(scheme -> mappings.put(scheme.getTarget(), List.of(scheme.getMapping())));
+        actual.getMethodSchemes().forEach(
+                scheme -> assertEquals(mappings.get(scheme.getTarget()), List.of(scheme.getMapping()))
+        );
+    }
+
+    @Test
+    public void testGeneratedFactories() throws Exception {
+        var output = Files.createTempDirectory("amaya-apt");
+        var diagnostics = compile(SOURCES, output, "-Aamaya.di.package=test.generated");
+        assertEquals(List.of(), getMessages(diagnostics, Diagnostic.Kind.ERROR));
+        // Generic depends on the type variable, so it must be left to the fallback
+        var warnings = getMessages(diagnostics, Diagnostic.Kind.WARNING);
+        assertTrue(warnings.stream().anyMatch(warning -> warning.contains("type variables")), warnings::toString);
+        var parent = getClass().getClassLoader();
+        try (var loader = new URLClassLoader(new java.net.URL[]{output.toUri().toURL()}, parent)) {
+            assertNotNull(loader.loadClass("test.App_AmayaFactory"));
+            assertNotNull(loader.loadClass("test.App_Nested_AmayaFactory"));
+            assertNotNull(loader.loadClass("test.Service_AmayaFactory"));
+            assertThrows(ClassNotFoundException.class, () -> loader.loadClass("test.Base_AmayaFactory"));
+            assertThrows(ClassNotFoundException.class, () -> loader.loadClass("test.Repository_AmayaFactory"));
+            assertThrows(ClassNotFoundException.class, () -> loader.loadClass("test.Generic_AmayaFactory"));
+            var reflection = new ReflectionSchemeFactory(Inject.class);
+            var schemes = (SchemeFactory) loader
+                    .loadClass("test.generated.GeneratedSchemeFactory")
+                    .getConstructor()
+                    .newInstance();
+            for (var name : List.of("test.App", "test.App$Nested", "test.Service")) {
+                var clazz = loader.loadClass(name);
+                assertSchemeEquals(reflection.create(clazz), schemes.create(clazz));
+            }
+            assertThrows(IllegalClassException.class, () -> schemes.create(loader.loadClass("test.Repository")));
+            var stubs = (StubFactory) loader
+                    .loadClass("test.generated.GeneratedStubFactory")
+                    .getConstructor()
+                    .newInstance();
+            var fallback = (SchemeFactory) loader
+                    .loadClass("test.generated.GeneratedSchemeFactory")
+                    .getConstructor(SchemeFactory.class)
+                    .newInstance(reflection);
+            var app = loader.loadClass("test.App");
+            var repository = loader.loadClass("test.Repository");
+            var service = loader.loadClass("test.Service");
+            var numbers = List.of(1, 2);
+            var strings = new List<?>[0];
+            var provider = ProviderBuilders.createChecked(fallback, stubs)
+                    .addInstance(Types.of(List.class, Number.class), numbers)
+                    .addInstance(Types.of(Types.of(List.class, String.class)), strings)
+                    .addInstance(repository, repository.getConstructor().newInstance())
+                    .addTransient(service)
+                    .addTransient(app)
+                    .build();
+            var instance = provider.get(app);
+            assertNotNull(app.getField("service").get(instance));
+            assertNotNull(app.getField("field").get(instance));
+            assertSame(strings, app.getField("array").get(instance));
+            assertNotNull(app.getField("inherited").get(instance));
+            assertSame(numbers, app.getField("staticValue").get(instance));
+            var injected = app.getField("field").get(instance);
+            assertNotNull(service.getField("repository").get(injected));
+        }
+    }
+
+    @Test
+    public void testIllegalClasses() throws Exception {
+        var sources = Map.of(
+                "test.Hidden", "package test;\n" +
+                        "@io.github.amayaframework.di.Inject\n" +
+                        "class Hidden {}\n",
+                "test.Ambiguous", "package test;\n" +
+                        "public class Ambiguous {\n" +
+                        "    public Ambiguous() {}\n" +
+                        "    public Ambiguous(String s) {}\n" +
+                        "    @io.github.amayaframework.di.Inject\n" +
+                        "    public Object value;\n" +
+                        "}\n",
+                "test.Skipped", "package test;\n" +
+                        "abstract class Skipped {\n" +
+                        "    @io.github.amayaframework.di.Inject\n" +
+                        "    public Object value;\n" +
+                        "}\n",
+                "test.Private", "package test;\n" +
+                        "public class Private {\n" +
+                        "    private Private() {}\n" +
+                        "    @io.github.amayaframework.di.Inject\n" +
+                        "    public Object value;\n" +
+                        "}\n"
+        );
+        var output = Files.createTempDirectory("amaya-apt");
+        var diagnostics = compile(sources, output);
+        var errors = getMessages(diagnostics, Diagnostic.Kind.ERROR);
+        assertEquals(2, errors.size(), errors::toString);
+        assertTrue(errors.contains("Cannot create scheme of non-public class"));
+        assertTrue(errors.contains("There are no annotated constructors"));
+        var warnings = getMessages(diagnostics, Diagnostic.Kind.WARNING);
+        assertTrue(warnings.contains("No public constructor was found, the scheme will not be generated"));
+    }
+
+    private static final class Source extends SimpleJavaFileObject {
+        private final String code;
+
+        private Source(String name, String code) {
+            super(URI.create("string:///" + name.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.code = code;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) throws IOException {
+            return code;
+        }
+    }
+}
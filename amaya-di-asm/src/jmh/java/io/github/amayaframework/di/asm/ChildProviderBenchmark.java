@@ -0,0 +1,68 @@
+package io.github.amayaframework.di.asm;
+
+import io.github.amayaframework.di.CheckedProviderBuilder;
+import io.github.amayaframework.di.ProviderBuilders;
+import io.github.amayaframework.di.ServiceProvider;
+import io.github.amayaframework.di.ServiceProviderBuilder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the creation of a provider with a few overridden services by the full rebuild
+ * and by the child of the already built provider.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@State(Scope.Benchmark)
+// The synthetic classes form a dependency chain as long as the number of classes, which is built recursively
+@Fork(jvmArgsAppend = "-Xss64m")
+public class ChildProviderBenchmark {
+    private static final int COUNT = 1000;
+    // The overridden service and the service depending on it
+    private static final int TARGET = 100;
+
+    private Class<?>[] classes;
+    private Object override;
+    private ServiceProvider parent;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        classes = SyntheticClasses.generate(COUNT);
+        parent = register(newBuilder()).build();
+        override = parent.get(classes[TARGET]);
+    }
+
+    private CheckedProviderBuilder newBuilder() {
+        var loader = new SyntheticClasses.StubLoader(classes[0].getClassLoader());
+        return new CheckedProviderBuilder(ProviderBuilders.REFLECTION_FACTORY, new BytecodeStubFactory(loader));
+    }
+
+    private ServiceProviderBuilder register(ServiceProviderBuilder builder) {
+        for (var clazz : classes) {
+            // Transient services would make the resolution exponential, since the classes share dependencies
+            builder.addSingleton(clazz);
+        }
+        return builder;
+    }
+
+    private ServiceProviderBuilder override(ServiceProviderBuilder builder) {
+        // The class i + 1 depends on the class i, so it must be rebuilt to see the override
+        return builder
+                .addInstance(classes[TARGET], override)
+                .addSingleton(classes[TARGET + 1]);
+    }
+
+    @Benchmark
+    public void benchRebuild(Blackhole blackhole) {
+        blackhole.consume(override(register(newBuilder())).build());
+    }
+
+    @Benchmark
+    public void benchCreateChild(Blackhole blackhole) {
+        blackhole.consume(parent.createChild(this::override));
+    }
+}
@@ -0,0 +1,66 @@
+package io.github.amayaframework.di.asm;
+
+import io.github.amayaframework.di.CheckedProviderBuilder;
+import io.github.amayaframework.di.ProviderBuilders;
+import io.github.amayaframework.di.ServiceProvider;
+import io.github.amayaframework.di.ServiceProviderBuilder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the replacement of a service in the built provider by the full rebuild
+ * and by the incremental rebuild of the provider.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@State(Scope.Benchmark)
+// The synthetic classes form a dependency chain as long as the number of classes, which is built recursively
+@Fork(jvmArgsAppend = "-Xss64m")
+public class IncrementalRebuildBenchmark {
+    private static final int COUNT = 1000;
+    // The class i depends on all classes before it, so only the last classes are affected by the replacement
+    private static final int TARGET = COUNT - 10;
+
+    private Class<?>[] classes;
+    private Object replacement;
+    private ServiceProvider provider;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        classes = SyntheticClasses.generate(COUNT);
+        provider = register(newBuilder()).build();
+        replacement = provider.get(classes[TARGET]);
+    }
+
+    private CheckedProviderBuilder newBuilder() {
+        var loader = new SyntheticClasses.StubLoader(classes[0].getClassLoader());
+        return new CheckedProviderBuilder(ProviderBuilders.REFLECTION_FACTORY, new BytecodeStubFactory(loader))
+                .setRebuildable(true);
+    }
+
+    private ServiceProviderBuilder register(ServiceProviderBuilder builder) {
+        for (var clazz : classes) {
+            // Transient services would make the resolution exponential, since the classes share dependencies
+            builder.addSingleton(clazz);
+        }
+        return builder;
+    }
+
+    private ServiceProviderBuilder replace(ServiceProviderBuilder builder) {
+        return builder.addInstance(classes[TARGET], replacement);
+    }
+
+    @Benchmark
+    public void benchFullRebuild(Blackhole blackhole) {
+        blackhole.consume(replace(register(newBuilder())).build());
+    }
+
+    @Benchmark
+    public void benchIncrementalRebuild(Blackhole blackhole) {
+        blackhole.consume(provider.rebuild(this::replace));
+    }
+}
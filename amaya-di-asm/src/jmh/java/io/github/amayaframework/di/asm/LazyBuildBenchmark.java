@@ -0,0 +1,62 @@
+package io.github.amayaframework.di.asm;
+
+import io.github.amayaframework.di.CheckedProviderBuilder;
+import io.github.amayaframework.di.ProviderBuilders;
+import io.github.amayaframework.di.ServiceProvider;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the build time of the provider with thousands of services and the latency of the first
+ * resolution of a service depending on a small part of them, with the eager and the lazy build.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@State(Scope.Benchmark)
+// The synthetic classes form a dependency chain as long as the number of classes, which is built recursively
+@Fork(jvmArgsAppend = "-Xss64m")
+public class LazyBuildBenchmark {
+    private static final int COUNT = 5000;
+    // Depends on the classes with lower indices only
+    private static final int TARGET = 100;
+
+    @Param({"false", "true"})
+    public boolean lazy;
+    private Class<?>[] classes;
+    private ServiceProvider provider;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        classes = SyntheticClasses.generate(COUNT);
+    }
+
+    @Setup(Level.Invocation)
+    public void setupInvocation() {
+        provider = build();
+    }
+
+    private ServiceProvider build() {
+        var loader = new SyntheticClasses.StubLoader(classes[0].getClassLoader());
+        var builder = new CheckedProviderBuilder(ProviderBuilders.REFLECTION_FACTORY, new BytecodeStubFactory(loader));
+        builder.setLazy(lazy);
+        for (var clazz : classes) {
+            // Transient services would make the resolution exponential, since the classes share dependencies
+            builder.addSingleton(clazz);
+        }
+        return builder.build();
+    }
+
+    @Benchmark
+    public void benchBuild(Blackhole blackhole) {
+        blackhole.consume(build());
+    }
+
+    @Benchmark
+    public void benchFirstGet(Blackhole blackhole) {
+        blackhole.consume(provider.get(classes[TARGET]));
+    }
+}
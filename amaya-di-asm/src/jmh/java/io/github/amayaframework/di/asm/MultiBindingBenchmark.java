@@ -0,0 +1,79 @@
+package io.github.amayaframework.di.asm;
+
+import com.github.romanqed.jfunc.Function0;
+import com.github.romanqed.jtype.Types;
+import io.github.amayaframework.di.ManualProviderBuilder;
+import io.github.amayaframework.di.ProviderBuilders;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup
+public class MultiBindingBenchmark {
+    private static final int FILTERS = 40;
+    private static final Type[] TYPES = new Type[FILTERS];
+    private static final Function0<Chain> MANUAL_HANDLE;
+    private static final Function0<Chain> MULTI_HANDLE;
+
+    static {
+        // Distinct element types without declaring forty filter classes
+        for (var i = 0; i < FILTERS; ++i) {
+            TYPES[i] = Types.of(Filter.class, Types.of(Object.class, i + 1));
+        }
+        var list = Types.of(List.class, Filter.class);
+        var manual = register(ProviderBuilders.createManual(new BytecodeStubFactory()));
+        // The emulation of the plugin list, which looks up the repository on each call
+        manual.addManual(list, types -> () -> {
+            var ret = new ArrayList<>();
+            for (var type : TYPES) {
+                ret.add(types.apply(type).invoke());
+            }
+            return ret;
+        });
+        MANUAL_HANDLE = manual.build().handle(Chain.class);
+        var multi = register(ProviderBuilders.createManual(new BytecodeStubFactory()));
+        for (var type : TYPES) {
+            multi.addToList(Filter.class, type);
+        }
+        MULTI_HANDLE = multi.build().handle(Chain.class);
+    }
+
+    private static ManualProviderBuilder register(ManualProviderBuilder builder) {
+        for (var type : TYPES) {
+            builder.addSingleton(type, FilterImpl.class);
+        }
+        return builder.addTransient(Chain.class);
+    }
+
+    @Benchmark
+    public void benchManualList(Blackhole blackhole) throws Throwable {
+        blackhole.consume(MANUAL_HANDLE.invoke());
+    }
+
+    @Benchmark
+    public void benchMultiBinding(Blackhole blackhole) throws Throwable {
+        blackhole.consume(MULTI_HANDLE.invoke());
+    }
+
+    @SuppressWarnings("unused")
+    public interface Filter<T> {
+    }
+
+    public static final class FilterImpl implements Filter<Object> {
+    }
+
+    @SuppressWarnings("rawtypes")
+    public static final class Chain {
+        final List<Filter> filters;
+
+        public Chain(List<Filter> filters) {
+            this.filters = filters;
+        }
+    }
+}
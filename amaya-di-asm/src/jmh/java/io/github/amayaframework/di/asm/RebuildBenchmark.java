@@ -0,0 +1,46 @@
+package io.github.amayaframework.di.asm;
+
+import io.github.amayaframework.di.ProviderBuilders;
+import io.github.amayaframework.di.scheme.SchemeFactory;
+import io.github.amayaframework.di.stub.StubFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures repeated builds of the identical provider, with and without the scheme cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup
+@State(Scope.Benchmark)
+public class RebuildBenchmark {
+    private static final StubFactory STUB_FACTORY = (scheme, provider) -> () -> null;
+    private static final int COUNT = 1000;
+
+    private Class<?>[] classes;
+
+    @Setup
+    public void setup() {
+        classes = SyntheticClasses.generate(COUNT);
+    }
+
+    private void build(SchemeFactory factory, Blackhole blackhole) {
+        var builder = ProviderBuilders.createChecked(factory, STUB_FACTORY);
+        for (var clazz : classes) {
+            builder.addTransient(clazz);
+        }
+        blackhole.consume(builder.build());
+    }
+
+    @Benchmark
+    public void benchPlainRebuild(Blackhole blackhole) {
+        build(ProviderBuilders.REFLECTION_FACTORY, blackhole);
+    }
+
+    @Benchmark
+    public void benchCachedRebuild(Blackhole blackhole) {
+        build(ProviderBuilders.CACHED_REFLECTION_FACTORY, blackhole);
+    }
+}
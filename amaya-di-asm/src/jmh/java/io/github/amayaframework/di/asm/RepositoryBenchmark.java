@@ -0,0 +1,116 @@
+package io.github.amayaframework.di.asm;
+
+import com.github.romanqed.jtype.Types;
+import io.github.amayaframework.di.FrozenServiceRepository;
+import io.github.amayaframework.di.HashServiceRepository;
+import io.github.amayaframework.di.ProviderBuilders;
+import io.github.amayaframework.di.ServiceRepository;
+import io.github.amayaframework.di.scheme.TypeInterner;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup
+@State(Scope.Benchmark)
+public class RepositoryBenchmark {
+    private static final Class<?>[] CLASSES = {
+            String.class, Integer.class, Long.class, Short.class, Byte.class, Double.class, Float.class,
+            Character.class, Boolean.class, Object.class, Number.class, Thread.class, Runnable.class,
+            StringBuilder.class, Class.class, ClassLoader.class
+    };
+    private static final int SIZE = 256;
+
+    private Type[] keys;
+    private ServiceRepository hash;
+    private ServiceRepository impl;
+    private ServiceRepository frozen;
+    private Type[] internedKeys;
+    private ServiceRepository internedHash;
+    private ServiceRepository internedFrozen;
+
+    private static Type makeType(int index) {
+        var length = CLASSES.length;
+        var key = CLASSES[index % length];
+        var value = CLASSES[(index / length) % length];
+        // The first keys are plain classes, the rest are parameterized types
+        if (index < length) {
+            return key;
+        }
+        return Types.of(Map.class, key, Types.of(List.class, value));
+    }
+
+    private static ServiceRepository fill(ServiceRepository repository, Type[] types) {
+        for (var type : types) {
+            repository.add(type, () -> type);
+        }
+        return repository;
+    }
+
+    private static ServiceRepository fill(ServiceRepository repository) {
+        var types = new Type[SIZE];
+        for (var i = 0; i < SIZE; ++i) {
+            types[i] = makeType(i);
+        }
+        return fill(repository, types);
+    }
+
+    @Setup
+    public void setup() {
+        // Lookup keys are equal to, but not identical with, the registered ones
+        keys = new Type[SIZE];
+        for (var i = 0; i < SIZE; ++i) {
+            keys[i] = makeType(i);
+        }
+        hash = fill(new HashServiceRepository());
+        // The default repository used by the builder
+        impl = fill(ProviderBuilders
+                .createChecked(new BytecodeStubFactory())
+                .build()
+                .getRepository());
+        frozen = new FrozenServiceRepository(hash);
+        // Both registered and lookup keys are canonical, so the probes end with the identity check
+        internedKeys = new Type[SIZE];
+        for (var i = 0; i < SIZE; ++i) {
+            internedKeys[i] = TypeInterner.intern(makeType(i));
+        }
+        internedHash = fill(new HashServiceRepository(), internedKeys);
+        internedFrozen = new FrozenServiceRepository(internedHash);
+    }
+
+    private static void lookup(ServiceRepository repository, Type[] keys, Blackhole blackhole) {
+        for (var key : keys) {
+            blackhole.consume(repository.get(key));
+        }
+    }
+
+    @Benchmark
+    public void benchHashRepository(Blackhole blackhole) {
+        lookup(hash, keys, blackhole);
+    }
+
+    @Benchmark
+    public void benchDefaultRepository(Blackhole blackhole) {
+        lookup(impl, keys, blackhole);
+    }
+
+    @Benchmark
+    public void benchFrozenRepository(Blackhole blackhole) {
+        lookup(frozen, keys, blackhole);
+    }
+
+    @Benchmark
+    public void benchInternedHashRepository(Blackhole blackhole) {
+        lookup(internedHash, internedKeys, blackhole);
+    }
+
+    @Benchmark
+    public void benchInternedFrozenRepository(Blackhole blackhole) {
+        lookup(internedFrozen, internedKeys, blackhole);
+    }
+}
@@ -0,0 +1,103 @@
+package io.github.amayaframework.di.asm;
+
+import com.github.romanqed.jfunc.Function0;
+import io.github.amayaframework.di.ProviderBuilders;
+import io.github.amayaframework.di.ServiceProviderBuilder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the diamond-shaped graph with transient and resolution-scoped shared dependencies.
+ * The GC profiler, enabled in the jmh configuration, reports the allocation rate per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup
+public class ResolutionBenchmark {
+    private static final Function0<App> TRANSIENT = create(
+            ProviderBuilders.createChecked(new BytecodeStubFactory(BytecodeStubFactory.FUSE_TRANSIENTS))
+                    .addTransient(Context.class)
+                    .addTransient(Session.class)
+    );
+    private static final Function0<App> RESOLUTION = create(
+            ProviderBuilders.createChecked(new BytecodeStubFactory(BytecodeStubFactory.FUSE_TRANSIENTS))
+                    .addResolutionScoped(Context.class)
+                    .addResolutionScoped(Session.class)
+    );
+
+    private static Function0<App> create(ServiceProviderBuilder builder) {
+        return builder
+                .addTransient(Repository.class)
+                .addTransient(Validator.class)
+                .addTransient(Handler.class)
+                .addTransient(App.class)
+                .build()
+                .handle(App.class);
+    }
+
+    @Benchmark
+    public void benchTransientDiamond(Blackhole blackhole) throws Throwable {
+        blackhole.consume(TRANSIENT.invoke());
+    }
+
+    @Benchmark
+    public void benchResolutionDiamond(Blackhole blackhole) throws Throwable {
+        blackhole.consume(RESOLUTION.invoke());
+    }
+
+    public static final class Context {
+        final byte[] buffer = new byte[64];
+    }
+
+    public static final class Session {
+        final Context context;
+
+        public Session(Context context) {
+            this.context = context;
+        }
+    }
+
+    public static final class Repository {
+        final Context context;
+        final Session session;
+
+        public Repository(Context context, Session session) {
+            this.context = context;
+            this.session = session;
+        }
+    }
+
+    public static final class Validator {
+        final Context context;
+        final Session session;
+
+        public Validator(Context context, Session session) {
+            this.context = context;
+            this.session = session;
+        }
+    }
+
+    public static final class Handler {
+        final Repository repository;
+        final Validator validator;
+        final Session session;
+
+        public Handler(Repository repository, Validator validator, Session session) {
+            this.repository = repository;
+            this.validator = validator;
+            this.session = session;
+        }
+    }
+
+    public static final class App {
+        final Handler handler;
+        final Context context;
+
+        public App(Handler handler, Context context) {
+            this.handler = handler;
+            this.context = context;
+        }
+    }
+}
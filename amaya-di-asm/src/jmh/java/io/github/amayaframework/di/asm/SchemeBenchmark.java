@@ -0,0 +1,55 @@
+package io.github.amayaframework.di.asm;
+
+import io.github.amayaframework.di.CheckedProviderBuilder;
+import io.github.amayaframework.di.Inject;
+import io.github.amayaframework.di.ProviderBuilders;
+import io.github.amayaframework.di.stub.StubFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the build of the provider with thousands of services, which is dominated by the scheme creation.
+ * Fresh classes are generated for each invocation, so the reflection data is never cached.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@State(Scope.Benchmark)
+public class SchemeBenchmark {
+    private static final StubFactory STUB_FACTORY = (scheme, provider) -> () -> null;
+
+    @Param({"1000", "4000"})
+    public int count;
+    private Class<?>[] classes;
+
+    @Setup(Level.Invocation)
+    public void setup() {
+        classes = SyntheticClasses.generate(count);
+    }
+
+    private void build(CheckedProviderBuilder builder) {
+        for (var clazz : classes) {
+            builder.addTransient(clazz);
+        }
+        builder.build();
+    }
+
+    @Benchmark
+    public void benchSequentialSchemes() {
+        build(new CheckedProviderBuilder(ProviderBuilders.REFLECTION_FACTORY, STUB_FACTORY));
+    }
+
+    @Benchmark
+    public void benchBytecodeSchemes() {
+        build(new CheckedProviderBuilder(new BytecodeSchemeFactory(Inject.class), STUB_FACTORY));
+    }
+
+    @Benchmark
+    public void benchParallelSchemes() {
+        build(new CheckedProviderBuilder(ProviderBuilders.REFLECTION_FACTORY, STUB_FACTORY)
+                .setSchemeExecutor(ForkJoinPool.commonPool()));
+    }
+}
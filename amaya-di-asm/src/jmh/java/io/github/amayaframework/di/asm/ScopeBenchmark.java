@@ -0,0 +1,63 @@
+package io.github.amayaframework.di.asm;
+
+import io.github.amayaframework.di.ProviderBuilders;
+import io.github.amayaframework.di.ServiceProvider;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup
+@Threads(4)
+public class ScopeBenchmark {
+    private static final ServiceProvider PROVIDER = ProviderBuilders
+            .createChecked(new BytecodeStubFactory())
+            .addSingleton(Service1.class)
+            .addScoped(Service2.class)
+            .addScoped(Service3.class)
+            .addTransient(Request.class)
+            .build();
+
+    @Benchmark
+    public void benchOpenClose(Blackhole blackhole) {
+        try (var scope = PROVIDER.createScope()) {
+            blackhole.consume(scope);
+        }
+    }
+
+    @Benchmark
+    public void benchOpenResolveClose(Blackhole blackhole) {
+        try (var scope = PROVIDER.createScope()) {
+            blackhole.consume(scope.get(Request.class));
+            blackhole.consume(scope.get(Request.class));
+        }
+    }
+
+    public static final class Service1 {
+    }
+
+    public static final class Service2 {
+    }
+
+    public static final class Service3 {
+        final Service2 s2;
+
+        public Service3(Service2 s2) {
+            this.s2 = s2;
+        }
+    }
+
+    public static final class Request {
+        final Service1 s1;
+        final Service2 s2;
+        final Service3 s3;
+
+        public Request(Service1 s1, Service2 s2, Service3 s3) {
+            this.s1 = s1;
+            this.s2 = s2;
+            this.s3 = s3;
+        }
+    }
+}
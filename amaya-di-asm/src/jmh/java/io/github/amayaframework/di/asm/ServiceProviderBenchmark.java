@@ -1,5 +1,7 @@
 package io.github.amayaframework.di.asm;
 
+import com.github.romanqed.jfunc.Function0;
+import io.github.amayaframework.di.CheckedProviderBuilder;
 import io.github.amayaframework.di.Inject;
 import io.github.amayaframework.di.ProviderBuilders;
 import io.github.amayaframework.di.ServiceProvider;
@@ -21,6 +23,24 @@ public class ServiceProviderBenchmark {
             .addTransient(Service3.class)
             .addTransient(App.class)
             .build();
+    private static final ServiceProvider FROZEN_PROVIDER = new CheckedProviderBuilder(
+            ProviderBuilders.REFLECTION_FACTORY,
+            STUB_FACTORY)
+            .setFrozen(true)
+            .addTransient(Service1.class)
+            .addTransient(Service2.class)
+            .addTransient(Service3.class)
+            .addTransient(App.class)
+            .build();
+    private static final Function0<App> HANDLE = PROVIDER.handle(App.class);
+    private static final Function0<App> FUSED_HANDLE = ProviderBuilders
+            .createChecked(new BytecodeStubFactory(BytecodeStubFactory.FUSE_TRANSIENTS))
+            .addTransient(Service1.class)
+            .addTransient(Service2.class)
+            .addTransient(Service3.class)
+            .addTransient(App.class)
+            .build()
+            .handle(App.class);
 
     @Benchmark
     public void benchManualInjection(Blackhole blackhole) {
@@ -35,6 +55,21 @@ public class ServiceProviderBenchmark {
         blackhole.consume(PROVIDER.get(App.class));
     }
 
+    @Benchmark
+    public void benchFrozenInjection(Blackhole blackhole) {
+        blackhole.consume(FROZEN_PROVIDER.get(App.class));
+    }
+
+    @Benchmark
+    public void benchHandleInjection(Blackhole blackhole) throws Throwable {
+        blackhole.consume(HANDLE.invoke());
+    }
+
+    @Benchmark
+    public void benchFusedInjection(Blackhole blackhole) throws Throwable {
+        blackhole.consume(FUSED_HANDLE.invoke());
+    }
+
     public static final class Service1 {
     }
 
@@ -0,0 +1,78 @@
+package io.github.amayaframework.di.asm;
+
+import com.github.romanqed.jfunc.Function0;
+import io.github.amayaframework.di.ProviderBuilders;
+import io.github.amayaframework.di.stub.StubFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup
+public class SingletonBenchmark {
+    private static final Function0<Request> PLAIN = create(new BytecodeStubFactory());
+    private static final Function0<Request> FOLDED = create(
+            new BytecodeStubFactory(BytecodeStubFactory.FOLD_SINGLETONS)
+    );
+
+    private static Function0<Request> create(StubFactory factory) {
+        return ProviderBuilders
+                .createChecked(factory)
+                .addSingleton(Service1.class)
+                .addSingleton(Service2.class)
+                .addSingleton(Service3.class)
+                .addSingleton(Service4.class)
+                .addSingleton(Service5.class)
+                .addSingleton(Service6.class)
+                .addSingleton(Service7.class)
+                .addSingleton(Service8.class)
+                .addTransient(Request.class)
+                .build()
+                .handle(Request.class);
+    }
+
+    @Benchmark
+    public void benchPlainSingletons(Blackhole blackhole) throws Throwable {
+        blackhole.consume(PLAIN.invoke());
+    }
+
+    @Benchmark
+    public void benchFoldedSingletons(Blackhole blackhole) throws Throwable {
+        blackhole.consume(FOLDED.invoke());
+    }
+
+    public static final class Service1 {
+    }
+
+    public static final class Service2 {
+    }
+
+    public static final class Service3 {
+    }
+
+    public static final class Service4 {
+    }
+
+    public static final class Service5 {
+    }
+
+    public static final class Service6 {
+    }
+
+    public static final class Service7 {
+    }
+
+    public static final class Service8 {
+    }
+
+    public static final class Request {
+        final Object[] services;
+
+        public Request(Service1 s1, Service2 s2, Service3 s3, Service4 s4,
+                       Service5 s5, Service6 s6, Service7 s7, Service8 s8) {
+            this.services = new Object[]{s1, s2, s3, s4, s5, s6, s7, s8};
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package io.github.amayaframework.di.asm;
+
+import com.github.romanqed.jfunc.Function0;
+import com.github.romanqed.jfunc.LazyFunction0;
+import io.github.amayaframework.di.SingletonFunction0;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup
+@Threads(4)
+@State(Scope.Benchmark)
+public class SingletonFunctionBenchmark {
+    private Function0<Object> lazy;
+    private Function0<Object> singleton;
+
+    @Setup
+    public void setup() throws Throwable {
+        lazy = new LazyFunction0<>(Object::new);
+        singleton = new SingletonFunction0<>(Object::new);
+        // Measure the read path only
+        lazy.invoke();
+        singleton.invoke();
+    }
+
+    @Benchmark
+    public void benchLazyFunction(Blackhole blackhole) throws Throwable {
+        blackhole.consume(lazy.invoke());
+    }
+
+    @Benchmark
+    public void benchSingletonFunction(Blackhole blackhole) throws Throwable {
+        blackhole.consume(singleton.invoke());
+    }
+}
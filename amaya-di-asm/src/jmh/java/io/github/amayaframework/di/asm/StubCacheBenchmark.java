@@ -0,0 +1,84 @@
+package io.github.amayaframework.di.asm;
+
+import com.github.romanqed.jeflect.loader.DefineObjectFactory;
+import com.github.romanqed.jfunc.Function0;
+import io.github.amayaframework.di.CheckedProviderBuilder;
+import io.github.amayaframework.di.ProviderBuilders;
+import io.github.amayaframework.di.scheme.CachedSchemeFactory;
+import io.github.amayaframework.di.scheme.SchemeFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the start of the provider with thousands of stubs without the stub cache, with the empty cache
+ * and with the filled one. Each invocation uses a new class loader, as a new JVM would.
+ * Schemes are cached for the whole trial, so the stub creation dominates.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@State(Scope.Benchmark)
+public class StubCacheBenchmark {
+    private static final int COUNT = 2000;
+
+    @Param({"none", "cold", "warm"})
+    public String cache;
+    private Class<?>[] classes;
+    private SchemeFactory schemes;
+    private Path directory;
+
+    private static void delete(Path directory) throws IOException {
+        try (var files = Files.walk(directory)) {
+            for (var file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws IOException {
+        classes = SyntheticClasses.generate(COUNT);
+        schemes = new CachedSchemeFactory(ProviderBuilders.REFLECTION_FACTORY);
+        directory = Files.createTempDirectory("amaya-stubs");
+        if (cache.equals("warm")) {
+            build();
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void setupInvocation() throws IOException {
+        if (cache.equals("cold")) {
+            delete(directory);
+            Files.createDirectories(directory);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        delete(directory);
+    }
+
+    private BytecodeStubFactory createStubFactory() {
+        var parent = classes[0].getClassLoader();
+        var factory = new DefineObjectFactory<Function0<?>>(new SyntheticClasses.StubLoader(parent));
+        if (cache.equals("none")) {
+            return new BytecodeStubFactory(factory, BytecodeStubFactory.NO_OPTIMIZATIONS);
+        }
+        return new BytecodeStubFactory(factory, BytecodeStubFactory.NO_OPTIMIZATIONS, directory);
+    }
+
+    @Benchmark
+    public Object build() {
+        var builder = new CheckedProviderBuilder(schemes, createStubFactory());
+        for (var clazz : classes) {
+            builder.addTransient(clazz);
+        }
+        return builder.build();
+    }
+}
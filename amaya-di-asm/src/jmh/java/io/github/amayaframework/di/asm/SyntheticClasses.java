@@ -0,0 +1,129 @@
+package io.github.amayaframework.di.asm;
+
+import com.github.romanqed.jeflect.loader.DefineLoader;
+import io.github.amayaframework.di.Inject;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Generates chains of synthetic service classes, so the benchmarks can register thousands of services.
+ * The class with index i has a constructor accepting the classes i - 1 and i / 2,
+ * an injected field of the class i - 3 and several methods, that are not used for injection.
+ */
+final class SyntheticClasses {
+    private static final String PACKAGE = "io/github/amayaframework/di/asm/synthetic/";
+    private static final String OBJECT = Type.getInternalName(Object.class);
+    private static final String INJECT = Type.getDescriptor(Inject.class);
+    private static final int METHODS = 8;
+
+    private SyntheticClasses() {
+    }
+
+    private static String name(int index) {
+        return PACKAGE + "Service" + index;
+    }
+
+    private static String descriptor(int index) {
+        return "L" + name(index) + ";";
+    }
+
+    private static byte[] generateClass(int index) {
+        var writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        var name = name(index);
+        writer.visit(Opcodes.V11, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL, name, null, OBJECT, null);
+        // Injected field
+        if (index >= 3) {
+            var field = writer.visitField(Opcodes.ACC_PUBLIC, "field", descriptor(index - 3), null, null);
+            field.visitAnnotation(INJECT, true).visitEnd();
+            field.visitEnd();
+        }
+        // Constructor
+        var parameters = index == 0 ? "" : descriptor(index - 1) + descriptor(index / 2);
+        var constructor = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "(" + parameters + ")V", null, null);
+        constructor.visitCode();
+        constructor.visitVarInsn(Opcodes.ALOAD, 0);
+        constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, OBJECT, "<init>", "()V", false);
+        constructor.visitInsn(Opcodes.RETURN);
+        constructor.visitMaxs(0, 0);
+        constructor.visitEnd();
+        // Methods, which must be scanned, but are not used
+        for (var i = 0; i < METHODS; ++i) {
+            var method = writer.visitMethod(Opcodes.ACC_PUBLIC, "method" + i, "(I)I", null, null);
+            method.visitCode();
+            method.visitVarInsn(Opcodes.ILOAD, 1);
+            method.visitInsn(Opcodes.IRETURN);
+            method.visitMaxs(0, 0);
+            method.visitEnd();
+        }
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    /**
+     * Generates and loads the specified number of synthetic classes by the new class loader.
+     *
+     * @param count the number of classes
+     * @return the array, containing loaded classes
+     */
+    static Class<?>[] generate(int count) {
+        var loader = new Loader(SyntheticClasses.class.getClassLoader());
+        var ret = new Class<?>[count];
+        for (var i = 0; i < count; ++i) {
+            ret[i] = loader.define(name(i).replace('/', '.'), generateClass(i));
+        }
+        return ret;
+    }
+
+    private static final class Loader extends ClassLoader {
+        private final Map<String, byte[]> resources;
+
+        private Loader(ClassLoader parent) {
+            super(parent);
+            this.resources = new HashMap<>();
+        }
+
+        Class<?> define(String name, byte[] bytes) {
+            // Keep the bytes, so the class file can be found like the one loaded from the classpath
+            resources.put(name.replace('.', '/') + ".class", bytes);
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+
+        @Override
+        public InputStream getResourceAsStream(String name) {
+            var bytes = resources.get(name);
+            if (bytes != null) {
+                return new ByteArrayInputStream(bytes);
+            }
+            return super.getResourceAsStream(name);
+        }
+    }
+
+    /**
+     * A class loader for the stubs of the synthetic classes, which must see the classes they construct.
+     */
+    static final class StubLoader extends ClassLoader implements DefineLoader {
+        StubLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        @Override
+        public Class<?> define(String name, byte[] buffer) {
+            return defineClass(name, buffer, 0, buffer.length);
+        }
+
+        @Override
+        public Class<?> load(String name) {
+            try {
+                return loadClass(name);
+            } catch (ClassNotFoundException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -70,6 +70,17 @@ final class AsmUtil {
         visitor.visitLdcInsn(value);
     }
 
+    public static void pop(MethodVisitor visitor, Class<?> type) {
+        if (type == void.class) {
+            return;
+        }
+        if (type == long.class || type == double.class) {
+            visitor.visitInsn(Opcodes.POP2);
+            return;
+        }
+        visitor.visitInsn(Opcodes.POP);
+    }
+
     public static void invoke(MethodVisitor visitor, Method method) {
         var owner = method.getDeclaringClass();
         var isInterface = owner.isInterface();
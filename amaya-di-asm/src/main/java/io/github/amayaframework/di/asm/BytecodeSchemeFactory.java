@@ -0,0 +1,293 @@
+package io.github.amayaframework.di.asm;
+
+import io.github.amayaframework.di.scheme.*;
+import org.objectweb.asm.Type;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.*;
+import java.util.*;
+
+/**
+ * A factory that creates a class scheme based on information read from the class files with ASM.
+ * The selection rules are the same as the {@link ReflectionSchemeFactory} rules, but instead of enumerating
+ * all public members of the class hierarchy and checking their annotations with the Reflection API,
+ * the factory finds the members to inject in the class files and then looks up only them by the exact signature.
+ * So the reflective data (and the classes used in the signatures) of the members that are not injected
+ * is not loaded, and no annotation instances are created. In particular, the classes without injected
+ * fields and methods do not touch the fields and methods through reflection at all.
+ * <br>
+ * The generic types of the selected members are obtained through the Reflection API,
+ * so the used {@link TypeProcessor} receives the same reflective elements.
+ * If the class file of some class in the hierarchy cannot be found (for example, for generated classes),
+ * the scheme is created by the {@link ReflectionSchemeFactory}.
+ * <br>
+ * The factory does not hold any mutable state except the cache of the read class files,
+ * so it is thread-safe as long as the used {@link TypeProcessor} is thread-safe.
+ */
+public final class BytecodeSchemeFactory implements SchemeFactory {
+    private final TypeProcessor processor;
+    private final String annotation;
+    private final SchemeFactory fallback;
+
+    /**
+     * Constructs a factory that will use the specified type processor and
+     * annotation as a marker to identify the dependent members of the class.
+     *
+     * @param processor  the specified type processor, must be non-null
+     * @param annotation the specified annotation type, must be non-null
+     */
+    public BytecodeSchemeFactory(TypeProcessor processor, Class<? extends Annotation> annotation) {
+        this.processor = Objects.requireNonNull(processor);
+        this.annotation = Type.getDescriptor(annotation);
+        this.fallback = new ReflectionSchemeFactory(processor, annotation);
+    }
+
+    /**
+     * Constructs a factory that will use the specified annotation
+     * as a marker to identify the dependent members of the class.
+     *
+     * @param annotation the specified annotation type, must be non-null
+     */
+    public BytecodeSchemeFactory(Class<? extends Annotation> annotation) {
+        this(new ReflectionTypeProcessor(), annotation);
+    }
+
+    private static void checkClass(Class<?> clazz) {
+        var modifiers = clazz.getModifiers();
+        if (!Modifier.isPublic(modifiers)) {
+            throw new IllegalClassException("Cannot create scheme of non-public class", clazz);
+        }
+        if (Modifier.isAbstract(modifiers)) {
+            throw new IllegalClassException("Cannot create scheme of abstract class", clazz);
+        }
+        if (clazz.isEnum()) {
+            throw new IllegalClassException("Cannot create scheme of enum class", clazz);
+        }
+        if (clazz.isPrimitive()) {
+            throw new IllegalClassException("Cannot create scheme of primitive class", clazz);
+        }
+        if (clazz.isArray()) {
+            throw new IllegalClassException("Cannot create scheme of array class", clazz);
+        }
+        if (clazz.isAnnotation()) {
+            throw new IllegalClassException("Cannot create scheme of annotation class", clazz);
+        }
+        if (clazz.isAnonymousClass()) {
+            throw new IllegalClassException("Cannot create scheme of anonymous class", clazz);
+        }
+        if (clazz.getDeclaringClass() != null && !Modifier.isStatic(modifiers)) {
+            throw new IllegalClassException("Cannot create scheme of non-static member class", clazz);
+        }
+    }
+
+    private static void collectInterfaces(Class<?> clazz, Set<Class<?>> interfaces) {
+        for (var found : clazz.getInterfaces()) {
+            if (interfaces.add(found)) {
+                collectInterfaces(found, interfaces);
+            }
+        }
+    }
+
+    private static Class<?> toClass(Type type, ClassLoader loader) throws ClassNotFoundException {
+        switch (type.getSort()) {
+            case Type.BOOLEAN:
+                return boolean.class;
+            case Type.CHAR:
+                return char.class;
+            case Type.BYTE:
+                return byte.class;
+            case Type.SHORT:
+                return short.class;
+            case Type.INT:
+                return int.class;
+            case Type.FLOAT:
+                return float.class;
+            case Type.LONG:
+                return long.class;
+            case Type.DOUBLE:
+                return double.class;
+            case Type.ARRAY:
+                return Class.forName(type.getDescriptor().replace('/', '.'), false, loader);
+            default:
+                // Do not initialize the parameter classes
+                return Class.forName(type.getClassName(), false, loader);
+        }
+    }
+
+    private static Class<?>[] toClasses(String descriptor, Class<?> owner) {
+        var types = Type.getArgumentTypes(descriptor);
+        var ret = new Class<?>[types.length];
+        var loader = owner.getClassLoader();
+        try {
+            for (var i = 0; i < types.length; ++i) {
+                ret[i] = toClass(types[i], loader);
+            }
+        } catch (ClassNotFoundException e) {
+            throw new NoClassDefFoundError(e.getMessage());
+        }
+        return ret;
+    }
+
+    private void process(Parameter[] parameters, int start, Set<java.lang.reflect.Type> types,
+                         java.lang.reflect.Type[] mapping) {
+        for (var i = start; i < parameters.length; ++i) {
+            var parameter = parameters[i];
+            var processed = processor.process(parameter.getParameterizedType(), parameter);
+            types.add(processed);
+            mapping[i - start] = processed;
+        }
+    }
+
+    private ConstructorScheme create(Constructor<?> constructor) {
+        if (constructor.getTypeParameters().length != 0) {
+            throw new IllegalMemberException("Cannot use parameterized constructor", constructor);
+        }
+        var types = new HashSet<java.lang.reflect.Type>();
+        var mapping = new java.lang.reflect.Type[constructor.getParameterCount()];
+        process(constructor.getParameters(), 0, types, mapping);
+        return new ConstructorScheme(constructor, types, mapping);
+    }
+
+    private MethodScheme create(Method method) {
+        if (method.getTypeParameters().length != 0) {
+            throw new IllegalMemberException("Cannot use parameterized method", method);
+        }
+        var types = new HashSet<java.lang.reflect.Type>();
+        var start = 0;
+        if (Modifier.isStatic(method.getModifiers())) {
+            var first = method.getParameterTypes()[0];
+            var owner = method.getDeclaringClass();
+            if (!first.isAssignableFrom(owner)) {
+                throw new IllegalClassException(
+                        "The first parameter of the static method must be the superclass of the current class",
+                        owner
+                );
+            }
+            start = 1;
+        }
+        var mapping = new java.lang.reflect.Type[method.getParameterCount() - start];
+        process(method.getParameters(), start, types, mapping);
+        return new MethodScheme(method, types, mapping);
+    }
+
+    private ConstructorScheme findConstructor(Class<?> clazz, ClassInfo info) throws NoSuchMethodException {
+        var constructors = info.constructors;
+        if (constructors.isEmpty()) {
+            throw new IllegalClassException("No public constructor was found", clazz);
+        }
+        ClassInfo.Member found = null;
+        if (constructors.size() == 1) {
+            found = constructors.get(0);
+        } else {
+            for (var constructor : constructors) {
+                if (!constructor.annotations.contains(annotation)) {
+                    continue;
+                }
+                if (found != null) {
+                    throw new IllegalClassException("It is impossible to select a constructor", clazz);
+                }
+                found = constructor;
+            }
+            if (found == null) {
+                throw new IllegalClassException("There are no annotated constructors", clazz);
+            }
+        }
+        return create(clazz.getConstructor(toClasses(found.descriptor, clazz)));
+    }
+
+    private Set<FieldScheme> findFields(Map<Class<?>, ClassInfo> hierarchy) throws NoSuchFieldException {
+        var ret = (Set<FieldScheme>) null;
+        // Hidden fields are visible through reflection too, so all of them are collected
+        for (var entry : hierarchy.entrySet()) {
+            for (var field : entry.getValue().fields) {
+                if (field.isStatic() || field.isFinal() || !field.annotations.contains(annotation)) {
+                    continue;
+                }
+                var found = entry.getKey().getField(field.name);
+                if (ret == null) {
+                    ret = new HashSet<>();
+                }
+                ret.add(new FieldScheme(found, processor.process(found.getGenericType(), found)));
+            }
+        }
+        return ret == null ? Collections.emptySet() : ret;
+    }
+
+    private boolean checkMethod(ClassInfo.Member method) {
+        if (!method.annotations.contains(annotation)) {
+            return false;
+        }
+        var parameters = Type.getArgumentTypes(method.descriptor).length;
+        if (method.isStatic()) {
+            return parameters > 1;
+        }
+        return parameters > 0;
+    }
+
+    private Set<MethodScheme> findMethods(Map<Class<?>, ClassInfo> hierarchy) throws NoSuchMethodException {
+        var ret = (Set<MethodScheme>) null;
+        // The hierarchy starts from the class itself, so the overriding methods are met first
+        var seen = new HashSet<String>();
+        for (var entry : hierarchy.entrySet()) {
+            var owner = entry.getKey();
+            var isInterface = owner.isInterface();
+            for (var method : entry.getValue().methods) {
+                // Static interface methods are not inherited
+                if (isInterface && method.isStatic()) {
+                    continue;
+                }
+                if (!seen.add(method.signature()) || !checkMethod(method)) {
+                    continue;
+                }
+                var found = owner.getMethod(method.name, toClasses(method.descriptor, owner));
+                if (ret == null) {
+                    ret = new HashSet<>();
+                }
+                ret.add(create(found));
+            }
+        }
+        return ret == null ? Collections.emptySet() : ret;
+    }
+
+    private static Map<Class<?>, ClassInfo> readHierarchy(Class<?> clazz) {
+        var ret = new LinkedHashMap<Class<?>, ClassInfo>();
+        var interfaces = new LinkedHashSet<Class<?>>();
+        var current = clazz;
+        while (current != null) {
+            var info = ClassInfo.of(current);
+            if (info == null) {
+                return null;
+            }
+            ret.put(current, info);
+            collectInterfaces(current, interfaces);
+            current = current.getSuperclass();
+        }
+        for (var found : interfaces) {
+            var info = ClassInfo.of(found);
+            if (info == null) {
+                return null;
+            }
+            ret.put(found, info);
+        }
+        return ret;
+    }
+
+    @Override
+    public ClassScheme create(Class<?> clazz) {
+        Objects.requireNonNull(clazz);
+        checkClass(clazz);
+        var hierarchy = readHierarchy(clazz);
+        if (hierarchy == null) {
+            return fallback.create(clazz);
+        }
+        try {
+            var constructor = findConstructor(clazz, hierarchy.get(clazz));
+            var fields = findFields(hierarchy);
+            var methods = findMethods(hierarchy);
+            return new ClassScheme(clazz, constructor, fields, methods);
+        } catch (NoSuchMethodException | NoSuchFieldException e) {
+            // The class file does not match the loaded class, so trust the reflection
+            return fallback.create(clazz);
+        }
+    }
+}
@@ -8,28 +8,111 @@ import com.github.romanqed.jfunc.Exceptions;
 import com.github.romanqed.jfunc.Function0;
 import com.github.romanqed.jtype.TypeUtil;
 import io.github.amayaframework.di.scheme.ClassScheme;
+import io.github.amayaframework.di.stub.SchemeProvider;
 import io.github.amayaframework.di.stub.StubFactory;
 import io.github.amayaframework.di.stub.TypeProvider;
 import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
 
 import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 
 /**
  * A factory that creates instantiators based on proxy classes generated on the fly.
+ * <br>
+ * If {@link BytecodeStubFactory#FUSE_TRANSIENTS} is enabled and the passed provider is {@link SchemeProvider},
+ * the construction of transient dependencies is inlined into the generated stub, so the whole transient subtree
+ * is created by a single method. Such dependencies are no longer requested from the repository,
+ * so replacing them in the repository after the build will not affect the fused stubs.
+ * <br>
+ * Resolution-scoped dependencies, as well as the transient dependencies leading to them, are always inlined
+ * (if the provider is {@link SchemeProvider}), and each of them is created once per stub invocation
+ * and kept in a local variable.
+ * So the instance is shared within the subtree, built by one stub, that is, up to the nearest
+ * singleton, scoped, custom or manual dependency.
+ * <br>
+ * If {@link BytecodeStubFactory#FOLD_SINGLETONS} is enabled, singleton dependencies are requested only once,
+ * after that the stub reads the materialized instance from its own field, bypassing the singleton wrapper.
+ * <br>
+ * If the cache directory is specified, the generated bytecode is stored there, and on later starts it is loaded
+ * from the disk instead of being generated again. The entries are keyed by the hash of the stub structure and
+ * the bytes of the constructed classes, so changed classes never get stale stubs.
+ * Classes whose bytes cannot be found through their class loader are not cached.
  */
 public final class BytecodeStubFactory implements StubFactory {
+    /**
+     * Disables all optimizations.
+     */
+    public static final int NO_OPTIMIZATIONS = 0;
+    /**
+     * Enables inlining of transient dependencies, whose schemes are known.
+     */
+    public static final int FUSE_TRANSIENTS = 0b01;
+    /**
+     * Enables caching of singleton dependencies inside the generated stubs.
+     */
+    public static final int FOLD_SINGLETONS = 0b10;
+
     private static final String STUB = "Stub";
+    private static final String FUSED_STUB = "FusedStub";
+    private static final String FOLDED_STUB = "FoldedStub";
+    private static final String CACHE = "cached";
+    private static final String OBJECT_DESCRIPTOR = Type.getDescriptor(Object.class);
     private static final Type FUNCTION0 = Type.getType(Function0.class);
     private static final Method INVOKE = Exceptions.suppress(() -> Function0.class.getDeclaredMethod("invoke"));
     private static final String OBJECT_NAME = Type.getInternalName(Object.class);
 
     private final ObjectFactory<Function0<?>> factory;
+    private final int options;
+    private final StubCache cache;
+
+    private BytecodeStubFactory(ObjectFactory<Function0<?>> factory, int options, StubCache cache) {
+        this.factory = Objects.requireNonNull(factory);
+        this.options = options;
+        this.cache = cache;
+    }
+
+    /**
+     * Constructs {@link BytecodeStubFactory} with the specified {@link ObjectFactory} instance,
+     * which will be used to load and instantiate the bytecode of proxy classes, the specified set of options
+     * and the directory, where the generated bytecode will be cached between runs.
+     *
+     * @param factory   the specified factory, must be non-null
+     * @param options   the specified set of optimizations
+     * @param directory the specified cache directory, must be non-null
+     */
+    public BytecodeStubFactory(ObjectFactory<Function0<?>> factory, int options, Path directory) {
+        this(factory, options, new StubCache(directory));
+    }
+
+    /**
+     * Constructs {@link BytecodeStubFactory} with {@link DefineClassLoader}, the specified set of options
+     * and the directory, where the generated bytecode will be cached between runs.
+     *
+     * @param options   the specified set of optimizations
+     * @param directory the specified cache directory, must be non-null
+     */
+    public BytecodeStubFactory(int options, Path directory) {
+        this(new DefineObjectFactory<>(new DefineClassLoader()), options, directory);
+    }
+
+    /**
+     * Constructs {@link BytecodeStubFactory} with the specified {@link ObjectFactory} instance,
+     * which will be used to load and instantiate the bytecode of proxy classes, and the specified set of options.
+     *
+     * @param factory the specified factory, must be non-null
+     * @param options the specified set of optimizations
+     */
+    public BytecodeStubFactory(ObjectFactory<Function0<?>> factory, int options) {
+        this(factory, options, (StubCache) null);
+    }
 
     /**
      * Constructs {@link BytecodeStubFactory} with the specified {@link ObjectFactory} instance,
@@ -38,7 +121,18 @@ public final class BytecodeStubFactory implements StubFactory {
      * @param factory the specified factory, must be non-null
      */
     public BytecodeStubFactory(ObjectFactory<Function0<?>> factory) {
-        this.factory = Objects.requireNonNull(factory);
+        this(factory, NO_OPTIMIZATIONS);
+    }
+
+    /**
+     * Constructs {@link BytecodeStubFactory} with the {@link DefineObjectFactory} using
+     * the specified {@link DefineLoader} and the specified set of options.
+     *
+     * @param loader  the specified loader, must be non-null
+     * @param options the specified set of optimizations
+     */
+    public BytecodeStubFactory(DefineLoader loader, int options) {
+        this(new DefineObjectFactory<>(loader), options);
     }
 
     /**
@@ -48,14 +142,23 @@ public final class BytecodeStubFactory implements StubFactory {
      * @param loader the specified loader, must be non-null
      */
     public BytecodeStubFactory(DefineLoader loader) {
-        this.factory = new DefineObjectFactory<>(loader);
+        this(loader, NO_OPTIMIZATIONS);
+    }
+
+    /**
+     * Constructs {@link BytecodeStubFactory} with {@link DefineClassLoader} and the specified set of options.
+     *
+     * @param options the specified set of optimizations
+     */
+    public BytecodeStubFactory(int options) {
+        this(new DefineClassLoader(), options);
     }
 
     /**
      * Constructs {@link BytecodeStubFactory} with {@link DefineClassLoader}.
      */
     public BytecodeStubFactory() {
-        this(new DefineClassLoader());
+        this(NO_OPTIMIZATIONS);
     }
 
     private static void generateConstructor(ClassWriter writer, String name, String[] order) {
@@ -119,48 +222,134 @@ public final class BytecodeStubFactory implements StubFactory {
         AsmUtil.castReference(visitor, TypeUtil.getRawType(type));
     }
 
+    private static void generateCacheMethod(ClassWriter writer, String name, String field) {
+        // Object cachedN() { var ret = this.cachedN; if (ret == null) { ret = this.N.invoke(); this.cachedN = ret; } return ret; }
+        var cache = CACHE + field;
+        var visitor = writer.visitMethod(
+                Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL,
+                cache,
+                "()" + OBJECT_DESCRIPTOR,
+                null,
+                new String[]{Type.getInternalName(Throwable.class)}
+        );
+        visitor.visitCode();
+        var found = new Label();
+        // Load cached value
+        visitor.visitVarInsn(Opcodes.ALOAD, 0);
+        visitor.visitFieldInsn(Opcodes.GETFIELD, name, cache, OBJECT_DESCRIPTOR);
+        visitor.visitInsn(Opcodes.DUP);
+        visitor.visitJumpInsn(Opcodes.IFNONNULL, found);
+        // Request the singleton and store it
+        visitor.visitInsn(Opcodes.POP);
+        visitor.visitVarInsn(Opcodes.ALOAD, 0);
+        visitor.visitFieldInsn(Opcodes.GETFIELD, name, field, FUNCTION0.getDescriptor());
+        visitor.visitMethodInsn(
+                Opcodes.INVOKEINTERFACE,
+                FUNCTION0.getInternalName(),
+                INVOKE.getName(),
+                Type.getMethodDescriptor(INVOKE),
+                true
+        );
+        visitor.visitInsn(Opcodes.DUP);
+        visitor.visitVarInsn(Opcodes.ALOAD, 0);
+        visitor.visitInsn(Opcodes.SWAP);
+        visitor.visitFieldInsn(Opcodes.PUTFIELD, name, cache, OBJECT_DESCRIPTOR);
+        // Return found value
+        visitor.visitLabel(found);
+        visitor.visitFrame(Opcodes.F_SAME1, 0, null, 1, new Object[]{OBJECT_NAME});
+        visitor.visitInsn(Opcodes.ARETURN);
+        visitor.visitMaxs(0, 0);
+        visitor.visitEnd();
+    }
+
+    private static void loadCachedType(MethodVisitor visitor, String name, String field, java.lang.reflect.Type type) {
+        visitor.visitVarInsn(Opcodes.ALOAD, 0);
+        visitor.visitMethodInsn(Opcodes.INVOKESPECIAL, name, CACHE + field, "()" + OBJECT_DESCRIPTOR, false);
+        AsmUtil.castReference(visitor, TypeUtil.getRawType(type));
+    }
+
+    private static void loadShared(MethodVisitor visitor,
+                                   String name,
+                                   Fusion fusion,
+                                   Fusion.Node node,
+                                   java.lang.reflect.Type type,
+                                   Map<java.lang.reflect.Type, String> fields,
+                                   Map<java.lang.reflect.Type, Integer> locals) {
+        var local = locals.get(type);
+        if (local != null) {
+            visitor.visitVarInsn(Opcodes.ALOAD, local);
+            return;
+        }
+        // There are no branches in the generated method, so the first emitted construction is executed first
+        construct(visitor, name, fusion, node, fields, locals);
+        local = locals.size() + 1;
+        visitor.visitInsn(Opcodes.DUP);
+        visitor.visitVarInsn(Opcodes.ASTORE, local);
+        locals.put(type, local);
+    }
+
+    private static void loadType(MethodVisitor visitor,
+                                 String name,
+                                 Fusion fusion,
+                                 Fusion.Node node,
+                                 java.lang.reflect.Type type,
+                                 Map<java.lang.reflect.Type, String> fields,
+                                 Map<java.lang.reflect.Type, Integer> locals) {
+        var child = node.children.get(type);
+        if (child != null && child.shared) {
+            // Construct resolution-scoped dependency once and keep it in local variable
+            loadShared(visitor, name, fusion, child, type, fields, locals);
+            return;
+        }
+        if (child != null) {
+            // Construct inlined dependency in place
+            construct(visitor, name, fusion, child, fields, locals);
+            return;
+        }
+        var field = fields.get(type);
+        if (fusion.cached.contains(type)) {
+            loadCachedType(visitor, name, field, type);
+            return;
+        }
+        loadType(visitor, name, field, type);
+    }
+
     private static void processExecutable(MethodVisitor visitor,
                                           String name,
+                                          Fusion fusion,
+                                          Fusion.Node node,
                                           java.lang.reflect.Type[] parameters,
-                                          Map<java.lang.reflect.Type, String> fields) {
+                                          Map<java.lang.reflect.Type, String> fields,
+                                          Map<java.lang.reflect.Type, Integer> locals) {
         for (var parameter : parameters) {
-            var field = fields.get(parameter);
-            loadType(visitor, name, field, parameter);
+            loadType(visitor, name, fusion, node, parameter, fields, locals);
         }
     }
 
-    private static void generateInvokeMethod(ClassWriter writer,
-                                             String name,
-                                             ClassScheme scheme,
-                                             Map<java.lang.reflect.Type, String> types) {
+    private static void construct(MethodVisitor visitor,
+                                  String name,
+                                  Fusion fusion,
+                                  Fusion.Node node,
+                                  Map<java.lang.reflect.Type, String> types,
+                                  Map<java.lang.reflect.Type, Integer> locals) {
         // Prepare schemes
+        var scheme = node.scheme;
         var constructor = scheme.getConstructorScheme();
         var fields = scheme.getFieldSchemes();
         var methods = scheme.getMethodSchemes();
         var raw = scheme.getTarget();
-        // Declare method signature
-        var visitor = writer.visitMethod(
-                Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL,
-                INVOKE.getName(),
-                Type.getMethodDescriptor(INVOKE),
-                null,
-                new String[]{Type.getInternalName(Throwable.class)}
-        );
-        visitor.visitCode();
         // Create instance of target class
         visitor.visitTypeInsn(Opcodes.NEW, Type.getInternalName(raw));
         visitor.visitInsn(Opcodes.DUP);
         // Invoke constructor by scheme
-        processExecutable(visitor, name, constructor.getMapping(), types);
+        processExecutable(visitor, name, fusion, node, constructor.getMapping(), types, locals);
         AsmUtil.invoke(visitor, constructor.getTarget());
         // Process field schemes
         for (var field : fields) {
             // ref.<field> = (Type) this.<type>.invoke();
             visitor.visitInsn(Opcodes.DUP);
             var target = field.getTarget();
-            var type = field.getType();
-            var source = types.get(type);
-            loadType(visitor, name, source, type);
+            loadType(visitor, name, fusion, node, field.getType(), types, locals);
             visitor.visitFieldInsn(
                     Opcodes.PUTFIELD,
                     Type.getInternalName(raw),
@@ -171,16 +360,37 @@ public final class BytecodeStubFactory implements StubFactory {
         // Process method schemes
         for (var method : methods) {
             visitor.visitInsn(Opcodes.DUP);
-            processExecutable(visitor, name, method.getMapping(), types);
-            AsmUtil.invoke(visitor, method.getTarget());
+            processExecutable(visitor, name, fusion, node, method.getMapping(), types, locals);
+            var target = method.getTarget();
+            AsmUtil.invoke(visitor, target);
+            // Drop the returned value, so that only the constructed instance remains on the stack
+            AsmUtil.pop(visitor, target.getReturnType());
         }
+    }
+
+    private static void generateInvokeMethod(ClassWriter writer,
+                                             String name,
+                                             Fusion fusion,
+                                             Map<java.lang.reflect.Type, String> types) {
+        // Declare method signature
+        var visitor = writer.visitMethod(
+                Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL,
+                INVOKE.getName(),
+                Type.getMethodDescriptor(INVOKE),
+                null,
+                new String[]{Type.getInternalName(Throwable.class)}
+        );
+        visitor.visitCode();
+        // Create instance of target class with all inlined dependencies
+        construct(visitor, name, fusion, fusion.root, types, new HashMap<>());
         // Return constructed instance
         visitor.visitInsn(Opcodes.ARETURN);
         visitor.visitMaxs(0, 0);
         visitor.visitEnd();
     }
 
-    private static byte[] generate(String name, ClassScheme scheme, Set<java.lang.reflect.Type> types) {
+    static byte[] generate(String name, Fusion fusion) {
+        var types = fusion.types;
         // Init writer
         var writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
         // Declare class
@@ -204,19 +414,32 @@ public final class BytecodeStubFactory implements StubFactory {
                     null
             );
         }
+        // Declare cache fields and their accessors
+        for (var type : fusion.cached) {
+            var field = mapping.types.get(type);
+            // The volatile field guarantees safe publication of the cached instance
+            writer.visitField(
+                    Opcodes.ACC_PRIVATE | Opcodes.ACC_VOLATILE,
+                    CACHE + field,
+                    OBJECT_DESCRIPTOR,
+                    null,
+                    null
+            );
+            generateCacheMethod(writer, name, field);
+        }
         // Generate constructor
         generateConstructor(writer, name, mapping.order);
         // Generate invoke method
-        generateInvokeMethod(writer, name, scheme, mapping.types);
+        generateInvokeMethod(writer, name, fusion, mapping.types);
         // Close writer
         writer.visitEnd();
         // Return bytecode
         return writer.toByteArray();
     }
 
-    private static Function0<?> instantiate(Class<?> clazz,
-                                            Set<java.lang.reflect.Type> types,
-                                            TypeProvider provider) throws Throwable {
+    static Function0<?> instantiate(Class<?> clazz,
+                                    Set<java.lang.reflect.Type> types,
+                                    TypeProvider provider) throws Throwable {
         var constructor = clazz.getDeclaredConstructor(Function0[].class);
         if (types.isEmpty()) {
             return (Function0<?>) constructor.newInstance((Object) null);
@@ -229,16 +452,39 @@ public final class BytecodeStubFactory implements StubFactory {
         return (Function0<?>) constructor.newInstance((Object) arguments);
     }
 
+    static Fusion plan(ClassScheme scheme, TypeProvider provider, int options) {
+        if (!(provider instanceof SchemeProvider)) {
+            return Fusion.of(scheme);
+        }
+        var fuse = (options & FUSE_TRANSIENTS) != 0;
+        var fold = (options & FOLD_SINGLETONS) != 0;
+        return Fusion.of(scheme, (SchemeProvider) provider, fuse, fold);
+    }
+
+    static String suffix(Fusion fusion) {
+        // Specialized stubs depend on the provider, so their structure must be reflected in the class name
+        if (fusion.isFused()) {
+            return FUSED_STUB + fusion.hash();
+        }
+        if (fusion.isFolded()) {
+            return FOLDED_STUB + fusion.hash();
+        }
+        return STUB;
+    }
+
     @Override
     public Function0<?> create(ClassScheme scheme, TypeProvider provider) {
         Objects.requireNonNull(scheme);
         Objects.requireNonNull(provider);
+        var fusion = plan(scheme, provider, options);
+        var suffix = suffix(fusion);
         var target = scheme.getTarget();
-        var name = target.getName() + STUB;
-        var types = scheme.getTypes();
+        var types = fusion.types;
+        var name = Type.getInternalName(target) + suffix;
+        Function0<byte[]> generator = () -> generate(name, fusion);
         return factory.create(
-                name,
-                () -> generate(Type.getInternalName(target) + STUB, scheme, types),
+                target.getName() + suffix,
+                cache == null ? generator : () -> cache.get(name, fusion, generator),
                 clazz -> instantiate(clazz, types, provider)
         );
     }
@@ -0,0 +1,152 @@
+package io.github.amayaframework.di.asm;
+
+import org.objectweb.asm.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+
+/**
+ * The public members of a class, read from its class file without the Reflection API.
+ */
+final class ClassInfo {
+    private static final String EXTENSION = ".class";
+    private static final String CONSTRUCTOR = "<init>";
+    private static final ClassInfo EMPTY = new ClassInfo(List.of(), List.of(), List.of());
+    private static final ClassValue<Optional<ClassInfo>> INFOS = new ClassValue<>() {
+        @Override
+        protected Optional<ClassInfo> computeValue(Class<?> type) {
+            return Optional.ofNullable(read(type));
+        }
+    };
+
+    final List<Member> constructors;
+    final List<Member> fields;
+    final List<Member> methods;
+
+    private ClassInfo(List<Member> constructors, List<Member> fields, List<Member> methods) {
+        this.constructors = constructors;
+        this.fields = fields;
+        this.methods = methods;
+    }
+
+    private static InputStream open(Class<?> type) {
+        var resource = Type.getInternalName(type) + EXTENSION;
+        var loader = type.getClassLoader();
+        if (loader == null) {
+            return ClassLoader.getSystemResourceAsStream(resource);
+        }
+        return loader.getResourceAsStream(resource);
+    }
+
+    private static ClassInfo read(Class<?> type) {
+        // The platform classes cannot be marked with the application annotations
+        if (type.getClassLoader() == null) {
+            return EMPTY;
+        }
+        try (var stream = open(type)) {
+            if (stream == null) {
+                return null;
+            }
+            var visitor = new InfoVisitor();
+            new ClassReader(stream).accept(visitor, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+            return new ClassInfo(visitor.constructors, visitor.fields, visitor.methods);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the members of the specified class, read once and cached.
+     *
+     * @param type the specified class
+     * @return null, if the class file cannot be found, {@link ClassInfo} instance otherwise
+     */
+    static ClassInfo of(Class<?> type) {
+        return INFOS.get(type).orElse(null);
+    }
+
+    static final class Member {
+        final int access;
+        final String name;
+        final String descriptor;
+        final Set<String> annotations;
+
+        private Member(int access, String name, String descriptor) {
+            this.access = access;
+            this.name = name;
+            this.descriptor = descriptor;
+            this.annotations = new HashSet<>();
+        }
+
+        boolean isStatic() {
+            return (access & Opcodes.ACC_STATIC) != 0;
+        }
+
+        boolean isFinal() {
+            return (access & Opcodes.ACC_FINAL) != 0;
+        }
+
+        // The part of the descriptor that identifies the overridden methods
+        String signature() {
+            return name + descriptor.substring(0, descriptor.indexOf(')') + 1);
+        }
+    }
+
+    private static final class InfoVisitor extends ClassVisitor {
+        private final List<Member> constructors;
+        private final List<Member> fields;
+        private final List<Member> methods;
+
+        private InfoVisitor() {
+            super(Opcodes.ASM9);
+            this.constructors = new ArrayList<>();
+            this.fields = new ArrayList<>();
+            this.methods = new ArrayList<>();
+        }
+
+        @Override
+        public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+            if ((access & Opcodes.ACC_PUBLIC) == 0) {
+                return null;
+            }
+            var member = new Member(access, name, descriptor);
+            fields.add(member);
+            return new FieldVisitor(Opcodes.ASM9) {
+                @Override
+                public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+                    if (visible) {
+                        member.annotations.add(descriptor);
+                    }
+                    return null;
+                }
+            };
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access,
+                                         String name,
+                                         String descriptor,
+                                         String signature,
+                                         String[] exceptions) {
+            if ((access & Opcodes.ACC_PUBLIC) == 0 || name.equals("<clinit>")) {
+                return null;
+            }
+            var member = new Member(access, name, descriptor);
+            if (name.equals(CONSTRUCTOR)) {
+                constructors.add(member);
+            } else {
+                methods.add(member);
+            }
+            return new MethodVisitor(Opcodes.ASM9) {
+                @Override
+                public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+                    if (visible) {
+                        member.annotations.add(descriptor);
+                    }
+                    return null;
+                }
+            };
+        }
+    }
+}
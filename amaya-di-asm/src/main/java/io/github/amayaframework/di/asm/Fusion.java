@@ -0,0 +1,206 @@
+package io.github.amayaframework.di.asm;
+
+import com.github.romanqed.jtype.TypeUtil;
+import io.github.amayaframework.di.scheme.ClassScheme;
+import io.github.amayaframework.di.stub.Lifetime;
+import io.github.amayaframework.di.stub.SchemeProvider;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+final class Fusion {
+    // Limits the number of inlined transient constructions, so the generated method does not exceed the size limit
+    static final int MAX_NODES = 256;
+
+    final Node root;
+    final Set<Type> types;
+    final Set<Type> cached;
+
+    private Fusion(Node root, Set<Type> types, Set<Type> cached) {
+        this.root = root;
+        this.types = types;
+        this.cached = cached;
+    }
+
+    // The order of types defines the layout of the generated class, so it must not depend on identity hash codes,
+    // otherwise the same stub would be generated differently in each run and could not be cached on disk
+    static Set<Type> sort(Set<Type> types) {
+        var ret = new ArrayList<>(types);
+        ret.sort(Comparator.comparing(Type::getTypeName));
+        return new LinkedHashSet<>(ret);
+    }
+
+    static Fusion of(ClassScheme scheme) {
+        return new Fusion(new Node(scheme, Map.of(), false), sort(scheme.getTypes()), Set.of());
+    }
+
+    static Fusion of(ClassScheme scheme, SchemeProvider provider, boolean fuse, boolean fold) {
+        var builder = new Builder(provider, fuse);
+        var root = builder.build(scheme, false, builder.types);
+        var cached = new HashSet<Type>();
+        if (fold) {
+            for (var type : builder.types) {
+                if (provider.getLifetime(type) == Lifetime.SINGLETON) {
+                    cached.add(type);
+                }
+            }
+        }
+        return new Fusion(root, sort(builder.types), cached);
+    }
+
+    boolean isFused() {
+        return !root.children.isEmpty();
+    }
+
+    boolean isFolded() {
+        return !cached.isEmpty();
+    }
+
+    private static void describe(StringBuilder builder, Node node) {
+        var scheme = node.scheme;
+        builder.append(scheme.getTarget().getName()).append('(');
+        for (var type : sort(scheme.getTypes())) {
+            var child = node.children.get(type);
+            if (child == null) {
+                builder.append('*').append(type.getTypeName());
+                continue;
+            }
+            if (child.shared) {
+                builder.append('&');
+            }
+            describe(builder, child);
+            builder.append(';');
+        }
+        builder.append(')');
+    }
+
+    String describe() {
+        var builder = new StringBuilder();
+        describe(builder, root);
+        for (var type : types) {
+            builder.append(cached.contains(type) ? '!' : '|').append(type.getTypeName());
+        }
+        return builder.toString();
+    }
+
+    String hash() {
+        // The structure of inlined tree, the order of fields and the set of cached types
+        // must be distinguished by the class name, since the generated classes are cached by it
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+            var bytes = digest.digest(describe().getBytes(StandardCharsets.UTF_8));
+            var ret = new StringBuilder();
+            for (var i = 0; i < 8; ++i) {
+                ret.append(String.format("%02x", bytes[i]));
+            }
+            return ret.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static final class Node {
+        final ClassScheme scheme;
+        final Map<Type, Node> children;
+        // The instance is created once per stub invocation and then reused
+        final boolean shared;
+        // The subtree contains at least one shared instance
+        final boolean sharing;
+
+        Node(ClassScheme scheme, Map<Type, Node> children, boolean shared) {
+            this.scheme = scheme;
+            this.children = children;
+            this.shared = shared;
+            this.sharing = shared || children.values().stream().anyMatch(child -> child.sharing);
+        }
+    }
+
+    private static final class Builder {
+        final SchemeProvider provider;
+        final boolean fuse;
+        final Set<Type> types;
+        final Set<Type> path;
+        final Map<Type, Boolean> reaching;
+        int count;
+
+        Builder(SchemeProvider provider, boolean fuse) {
+            this.provider = provider;
+            this.fuse = fuse;
+            this.types = new LinkedHashSet<>();
+            this.path = new HashSet<>();
+            this.reaching = new HashMap<>();
+        }
+
+        // Checks whether the transient subtree of the type contains resolution-scoped dependencies without
+        // building it, so that the plan without fusion stays linear in the number of reachable types.
+        // Each type is visited once, so the walk needs no node budget and its answer is always exact:
+        // guessing false would silently build the shared dependencies more than once
+        boolean reachesShared(Type type) {
+            var ret = reaching.get(type);
+            if (ret != null) {
+                return ret;
+            }
+            // Guards against cycles, which will be reported by the builder anyway
+            reaching.put(type, false);
+            var found = false;
+            var scheme = provider.getScheme(type);
+            if (scheme != null) {
+                for (var dependency : scheme.getTypes()) {
+                    var lifetime = provider.getLifetime(dependency);
+                    if (lifetime == Lifetime.RESOLUTION
+                            || lifetime == Lifetime.TRANSIENT && reachesShared(dependency)) {
+                        found = true;
+                        break;
+                    }
+                }
+            }
+            reaching.put(type, found);
+            return found;
+        }
+
+        ClassScheme find(Type type, Lifetime lifetime) {
+            if (lifetime != Lifetime.TRANSIENT && lifetime != Lifetime.RESOLUTION) {
+                return null;
+            }
+            if (path.contains(type) || TypeUtil.getRawType(type).isPrimitive()) {
+                return null;
+            }
+            // Shared instances and the paths to them are exempt from the budget, since a leaf would be
+            // resolved through the repository and create another instance
+            if (count >= MAX_NODES && lifetime == Lifetime.TRANSIENT && !reachesShared(type)) {
+                return null;
+            }
+            return provider.getScheme(type);
+        }
+
+        Node build(ClassScheme scheme, boolean shared, Set<Type> leaves) {
+            var children = new HashMap<Type, Node>();
+            for (var type : scheme.getTypes()) {
+                var lifetime = provider.getLifetime(type);
+                var found = find(type, lifetime);
+                if (found == null || !fuse && lifetime == Lifetime.TRANSIENT && !reachesShared(type)) {
+                    leaves.add(type);
+                    continue;
+                }
+                var count = this.count++;
+                var inner = new LinkedHashSet<Type>();
+                path.add(type);
+                var child = build(found, lifetime == Lifetime.RESOLUTION, inner);
+                path.remove(type);
+                // Resolution-scoped instances can be shared only within one stub, so they are always inlined,
+                // and if fusion is disabled, transient dependencies are inlined only on the way to them
+                if (!fuse && !child.sharing) {
+                    this.count = count;
+                    leaves.add(type);
+                    continue;
+                }
+                children.put(type, child);
+                leaves.addAll(inner);
+            }
+            return new Node(scheme, children, shared);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package io.github.amayaframework.di.asm;
+
+import com.github.romanqed.jfunc.Function0;
+import io.github.amayaframework.di.scheme.ClassScheme;
+import io.github.amayaframework.di.stub.StubFactory;
+import io.github.amayaframework.di.stub.TypeProvider;
+
+/**
+ * A factory that creates instantiators based on hidden classes, which are unloaded together with the stubs.
+ * <br>
+ * Hidden classes are available since java 15, so this version, used on older runtimes, cannot be instantiated.
+ * The actual implementation is located in the multi-release part of the jar.
+ */
+public final class HiddenStubFactory implements StubFactory {
+    private static final String UNSUPPORTED = "Hidden classes require java 15 or newer";
+
+    /**
+     * Constructs {@link HiddenStubFactory} with the specified set of options.
+     *
+     * @param options the specified set of optimizations, see {@link BytecodeStubFactory}
+     * @throws UnsupportedOperationException always, since the runtime does not support hidden classes
+     */
+    public HiddenStubFactory(int options) {
+        throw new UnsupportedOperationException(UNSUPPORTED);
+    }
+
+    /**
+     * Constructs {@link HiddenStubFactory}.
+     *
+     * @throws UnsupportedOperationException always, since the runtime does not support hidden classes
+     */
+    public HiddenStubFactory() {
+        this(BytecodeStubFactory.NO_OPTIMIZATIONS);
+    }
+
+    @Override
+    public Function0<?> create(ClassScheme scheme, TypeProvider provider) {
+        throw new UnsupportedOperationException(UNSUPPORTED);
+    }
+}
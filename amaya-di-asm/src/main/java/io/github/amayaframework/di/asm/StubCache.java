@@ -0,0 +1,203 @@
+package io.github.amayaframework.di.asm;
+
+import com.github.romanqed.jfunc.Function0;
+import org.objectweb.asm.Type;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Member;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Objects;
+
+/**
+ * The on-disk cache of the generated stub bytecode.
+ * <br>
+ * The key of an entry is a hash of the stub name, the structure of the stub, the bytes of all the classes
+ * constructed by it and the owners (with their bytes) and descriptors of all the injected members, so any change
+ * in these classes leads to another key, and the stale entry is never read again.
+ * If the bytes of some class cannot be found, the stub is not cached at all.
+ * I/O errors are ignored, so in the worst case the cache just degrades to the generation.
+ */
+final class StubCache {
+    // Must be changed whenever the layout of the generated classes changes
+    private static final String FORMAT = "2";
+    private static final String EXTENSION = ".class";
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final ClassValue<String> DIGESTS = new ClassValue<>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            return digestClass(type);
+        }
+    };
+
+    private final Path directory;
+    private volatile boolean created;
+
+    StubCache(Path directory) {
+        this.directory = Objects.requireNonNull(directory);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        var ret = new StringBuilder(bytes.length * 2);
+        for (var b : bytes) {
+            ret.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return ret.toString();
+    }
+
+    private static InputStream open(Class<?> type) {
+        var resource = Type.getInternalName(type) + EXTENSION;
+        var loader = type.getClassLoader();
+        if (loader == null) {
+            return ClassLoader.getSystemResourceAsStream(resource);
+        }
+        return loader.getResourceAsStream(resource);
+    }
+
+    private static String digestClass(Class<?> type) {
+        try (var stream = open(type)) {
+            if (stream == null) {
+                return "";
+            }
+            return toHex(newDigest().digest(stream.readAllBytes()));
+        } catch (IOException e) {
+            return "";
+        }
+    }
+
+    // The owner and the descriptor of a member are compiled into the stub, so they are a part of the key
+    private static String describe(Member member, String descriptor) {
+        var owner = member.getDeclaringClass();
+        var digest = DIGESTS.get(owner);
+        if (digest.isEmpty()) {
+            return null;
+        }
+        return owner.getName() + '@' + digest + '.' + member.getName() + descriptor;
+    }
+
+    private static String describe(Executable executable, String descriptor, java.lang.reflect.Type[] mapping) {
+        var ret = describe(executable, descriptor);
+        if (ret == null) {
+            return null;
+        }
+        var builder = new StringBuilder(ret);
+        for (var type : mapping) {
+            builder.append(';').append(type.getTypeName());
+        }
+        return builder.toString();
+    }
+
+    private static boolean describe(StringBuilder builder, Fusion.Node node) {
+        var scheme = node.scheme;
+        var digest = DIGESTS.get(scheme.getTarget());
+        if (digest.isEmpty()) {
+            return false;
+        }
+        builder.append('\n').append(scheme.getTarget().getName()).append('@').append(digest);
+        // Members are kept in hash sets, so sort them to get the same description in each run
+        var members = new ArrayList<String>();
+        var constructor = scheme.getConstructorScheme();
+        var target = constructor.getTarget();
+        members.add(describe(target, Type.getConstructorDescriptor(target), constructor.getMapping()));
+        for (var field : scheme.getFieldSchemes()) {
+            var found = field.getTarget();
+            var member = describe(found, ':' + Type.getDescriptor(found.getType()));
+            members.add(member == null ? null : member + ';' + field.getType().getTypeName());
+        }
+        for (var method : scheme.getMethodSchemes()) {
+            var found = method.getTarget();
+            members.add(describe(found, Type.getMethodDescriptor(found), method.getMapping()));
+        }
+        if (members.contains(null)) {
+            return false;
+        }
+        members.sort(null);
+        members.forEach(member -> builder.append('\n').append(member));
+        for (var type : Fusion.sort(node.children.keySet())) {
+            if (!describe(builder, node.children.get(type))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static String key(String name, Fusion fusion) {
+        var builder = new StringBuilder(FORMAT).append('\n').append(name).append('\n').append(fusion.describe());
+        if (!describe(builder, fusion.root)) {
+            return null;
+        }
+        return toHex(newDigest().digest(builder.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static boolean isValid(byte[] bytes) {
+        if (bytes.length < 4) {
+            return false;
+        }
+        var magic = (bytes[0] & 0xFF) << 24 | (bytes[1] & 0xFF) << 16 | (bytes[2] & 0xFF) << 8 | (bytes[3] & 0xFF);
+        return magic == MAGIC;
+    }
+
+    private static byte[] read(Path file) {
+        try {
+            var ret = Files.readAllBytes(file);
+            return isValid(ret) ? ret : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void write(Path file, byte[] bytes) {
+        try {
+            if (!created) {
+                Files.createDirectories(directory);
+                created = true;
+            }
+            // Write to the temporary file first, so that concurrent readers never see a partial entry
+            var temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try {
+                Files.write(temporary, bytes);
+                try {
+                    Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException ignored) {
+            // The entry will be generated again next time
+        }
+    }
+
+    // Returns the cached bytecode of the stub or generates it and puts it to the cache
+    byte[] get(String name, Fusion fusion, Function0<byte[]> generator) throws Throwable {
+        var key = key(name, fusion);
+        if (key == null) {
+            return generator.invoke();
+        }
+        var file = directory.resolve(key + EXTENSION);
+        var ret = read(file);
+        if (ret != null) {
+            return ret;
+        }
+        ret = generator.invoke();
+        write(file, ret);
+        return ret;
+    }
+}
@@ -0,0 +1,88 @@
+package io.github.amayaframework.di.asm;
+
+import com.github.romanqed.jfunc.Exceptions;
+import com.github.romanqed.jfunc.Function0;
+import io.github.amayaframework.di.scheme.ClassScheme;
+import io.github.amayaframework.di.stub.StubFactory;
+import io.github.amayaframework.di.stub.TypeProvider;
+import org.objectweb.asm.Type;
+
+import java.lang.invoke.MethodHandles;
+import java.util.Objects;
+
+/**
+ * A factory that creates instantiators based on hidden classes generated on the fly.
+ * <br>
+ * Unlike {@link BytecodeStubFactory}, the generated classes are not bound to any class loader, so they are
+ * unloaded as soon as the stubs (that is, the provider that holds them) become unreachable.
+ * The price is that the classes are not shared: each call generates and defines a new one.
+ * <br>
+ * If the full-privilege lookup of the target class can be obtained (the target module opens its package
+ * to this module, which is always true for the class path), the stub is defined as a nestmate of the target,
+ * so it can access its non-public members without reflection. Otherwise, the stub is defined
+ * in the package of this factory and can access only public members.
+ * <br>
+ * The supported options are the same as {@link BytecodeStubFactory} ones.
+ */
+public final class HiddenStubFactory implements StubFactory {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final String NAME = Type.getInternalName(HiddenStubFactory.class);
+    private static final String PACKAGE = NAME.substring(0, NAME.lastIndexOf('/') + 1);
+    private static final String HIDDEN = "Hidden";
+
+    private final int options;
+
+    /**
+     * Constructs {@link HiddenStubFactory} with the specified set of options.
+     *
+     * @param options the specified set of optimizations, see {@link BytecodeStubFactory}
+     */
+    public HiddenStubFactory(int options) {
+        this.options = options;
+    }
+
+    /**
+     * Constructs {@link HiddenStubFactory}.
+     */
+    public HiddenStubFactory() {
+        this(BytecodeStubFactory.NO_OPTIMIZATIONS);
+    }
+
+    private static MethodHandles.Lookup findLookup(Class<?> target) {
+        try {
+            var ret = MethodHandles.privateLookupIn(target, LOOKUP);
+            return ret.hasFullPrivilegeAccess() ? ret : null;
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    private static Class<?> define(Class<?> target, Fusion fusion) throws IllegalAccessException {
+        var suffix = HIDDEN + BytecodeStubFactory.suffix(fusion);
+        var lookup = findLookup(target);
+        if (lookup == null) {
+            // The hidden class must be in the package of the lookup class
+            var name = PACKAGE + target.getSimpleName() + suffix;
+            return LOOKUP.defineHiddenClass(BytecodeStubFactory.generate(name, fusion), true).lookupClass();
+        }
+        var name = Type.getInternalName(target) + suffix;
+        return lookup
+                .defineHiddenClass(
+                        BytecodeStubFactory.generate(name, fusion),
+                        true,
+                        MethodHandles.Lookup.ClassOption.NESTMATE
+                )
+                .lookupClass();
+    }
+
+    @Override
+    public Function0<?> create(ClassScheme scheme, TypeProvider provider) {
+        Objects.requireNonNull(scheme);
+        Objects.requireNonNull(provider);
+        var fusion = BytecodeStubFactory.plan(scheme, provider, options);
+        return Exceptions.suppress(() -> {
+            var clazz = define(scheme.getTarget(), fusion);
+            return BytecodeStubFactory.instantiate(clazz, fusion.types, provider);
+        });
+    }
+}
@@ -0,0 +1,174 @@
+package io.github.amayaframework.di.asm;
+
+import io.github.amayaframework.di.Inject;
+import io.github.amayaframework.di.scheme.ClassScheme;
+import io.github.amayaframework.di.scheme.IllegalClassException;
+import io.github.amayaframework.di.scheme.ReflectionSchemeFactory;
+import io.github.amayaframework.di.scheme.SchemeFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
+
+public class SchemeTest extends Assertions {
+    private static final SchemeFactory REFLECTION_FACTORY = new ReflectionSchemeFactory(Inject.class);
+    private static final SchemeFactory BYTECODE_FACTORY = new BytecodeSchemeFactory(Inject.class);
+
+    private static void assertSchemeEquals(ClassScheme expected, ClassScheme actual) {
+        assertEquals(expected.getTarget(), actual.getTarget());
+        assertEquals(expected.getTypes(), actual.getTypes());
+        var constructor = expected.getConstructorScheme();
+        assertEquals(constructor.getTarget(), actual.getConstructorScheme().getTarget());
+        assertArrayEquals(constructor.getMapping(), actual.getConstructorScheme().getMapping());
+        assertEquals(expected.getFieldSchemes(), actual.getFieldSchemes());
+        assertEquals(expected.getMethodSchemes(), actual.getMethodSchemes());
+        var mappings = new HashMap<Object, List<java.lang.reflect.Type>>();
+        expected.getMethodSchemes().forEach(scheme -> mappings.put(scheme.getTarget(), List.of(scheme.getMapping())));
+        actual.getMethodSchemes().forEach(
+                scheme -> assertEquals(mappings.get(scheme.getTarget()), List.of(scheme.getMapping()))
+        );
+    }
+
+    @Test
+    public void testSameSchemes() {
+        for (var clazz : List.of(App.class, Base.class, Service.class)) {
+            assertSchemeEquals(REFLECTION_FACTORY.create(clazz), BYTECODE_FACTORY.create(clazz));
+        }
+        var app = BYTECODE_FACTORY.create(App.class);
+        assertEquals(3, app.getFieldSchemes().size());
+        assertEquals(4, app.getMethodSchemes().size());
+        for (var clazz : List.of(Ambiguous.class, Defaults.class, Runnable.class)) {
+            var expected = assertThrows(IllegalClassException.class, () -> REFLECTION_FACTORY.create(clazz));
+            var actual = assertThrows(IllegalClassException.class, () -> BYTECODE_FACTORY.create(clazz));
+            assertEquals(expected.getMessage(), actual.getMessage());
+        }
+    }
+
+    @Test
+    public void testUnusedMembers() throws Exception {
+        // The class has a method referring to the missing class, which is not needed for the scheme
+        var unresolved = new BytesLoader(true).define();
+        assertThrows(NoClassDefFoundError.class, () -> REFLECTION_FACTORY.create(unresolved));
+        var scheme = BYTECODE_FACTORY.create(unresolved);
+        assertEquals(unresolved.getField("value"), scheme.getFieldSchemes().iterator().next().getTarget());
+        // Without the class file, the reflection is used
+        var hidden = new BytesLoader(false).define();
+        assertThrows(NoClassDefFoundError.class, () -> BYTECODE_FACTORY.create(hidden));
+    }
+
+    public static final class Service {
+    }
+
+    public interface Defaults {
+        @Inject
+        default void setDefault(Service service) {
+        }
+
+        @Inject
+        static void setStaticDefault(Object object, Service service) {
+        }
+    }
+
+    public static class Base {
+        @Inject
+        public Service inherited;
+        @Inject
+        public Service hidden;
+        @Inject
+        public final Service finalField = null;
+
+        @Inject
+        public static void setStatic(Base base, List<? extends Number> value) {
+        }
+
+        @Inject
+        public void setOverridden(Service service) {
+        }
+
+        @Inject
+        public void setInherited(Service service) {
+        }
+    }
+
+    public static final class App extends Base implements Defaults {
+        @Inject
+        public Service hidden;
+        @Inject
+        public static Service staticField;
+
+        public App() {
+        }
+
+        @Inject
+        public App(Service service, List<String>[] array) {
+        }
+
+        @Override
+        public void setOverridden(Service service) {
+        }
+
+        @Inject
+        public void setPrimitive(int value) {
+        }
+
+        @Inject
+        public void notInjected() {
+        }
+    }
+
+    public static final class Ambiguous {
+        @Inject
+        public Ambiguous() {
+        }
+
+        @Inject
+        public Ambiguous(Service service) {
+        }
+    }
+
+    private static final class BytesLoader extends ClassLoader {
+        static final String NAME = "io.github.amayaframework.di.asm.Unresolved";
+        private final byte[] bytes;
+        private final boolean expose;
+
+        private BytesLoader(boolean expose) {
+            super(SchemeTest.class.getClassLoader());
+            var writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+            var internal = NAME.replace('.', '/');
+            writer.visit(Opcodes.V11, Opcodes.ACC_PUBLIC, internal, null, "java/lang/Object", null);
+            var field = writer.visitField(Opcodes.ACC_PUBLIC, "value", "Ljava/lang/String;", null, null);
+            field.visitAnnotation(Type.getDescriptor(Inject.class), true).visitEnd();
+            field.visitEnd();
+            var constructor = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+            constructor.visitCode();
+            constructor.visitVarInsn(Opcodes.ALOAD, 0);
+            constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+            constructor.visitInsn(Opcodes.RETURN);
+            constructor.visitMaxs(0, 0);
+            constructor.visitEnd();
+            writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT, "unused", "(Lmissing/Missing;)V", null, null)
+                    .visitEnd();
+            writer.visitEnd();
+            this.bytes = writer.toByteArray();
+            this.expose = expose;
+        }
+
+        Class<?> define() {
+            return defineClass(NAME, bytes, 0, bytes.length);
+        }
+
+        @Override
+        public InputStream getResourceAsStream(String name) {
+            if (expose && name.equals(NAME.replace('.', '/') + ".class")) {
+                return new ByteArrayInputStream(bytes);
+            }
+            return super.getResourceAsStream(name);
+        }
+    }
+}
@@ -1,12 +1,20 @@
 package io.github.amayaframework.di.asm;
 
 import com.github.romanqed.jtype.Types;
+import io.github.amayaframework.di.Inject;
 import io.github.amayaframework.di.ProviderBuilders;
 import io.github.amayaframework.di.ServiceProvider;
 import io.github.amayaframework.di.ServiceProviderBuilder;
 import io.github.amayaframework.di.stub.StubFactory;
+import io.github.amayaframework.di.stub.TieredStubFactory;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.condition.JRE;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
 
 public class ServiceProviderTest extends Assertions {
     private static final StubFactory BYTECODE_FACTORY = new BytecodeStubFactory();
@@ -50,6 +58,169 @@ public class ServiceProviderTest extends Assertions {
         testProvider(ProviderBuilders.createManual(BYTECODE_FACTORY));
     }
 
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_15)
+    public void testHiddenProvider() {
+        var factory = new HiddenStubFactory(BytecodeStubFactory.FUSE_TRANSIENTS);
+        testProvider(ProviderBuilders.createChecked(factory));
+        testProvider(ProviderBuilders.createManual(factory));
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_15)
+    public void testHiddenStubUnloading() throws InterruptedException {
+        var provider = create(ProviderBuilders.createChecked(new HiddenStubFactory()));
+        var stub = provider.getRepository().get(Service1.class);
+        // Tests are compiled for Java 11, so Class.isHidden is not available, but hidden class names contain '/'
+        assertTrue(stub.getClass().getName().contains("/"));
+        var reference = new WeakReference<Class<?>>(stub.getClass());
+        // Only the provider keeps its stubs alive, so the hidden class must go with it
+        provider = null;
+        stub = null;
+        for (var i = 0; i < 100 && reference.get() != null; ++i) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(reference.get());
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_15)
+    @EnabledIfSystemProperty(named = "amaya.test.slow", matches = "true")
+    public void testHiddenStubBulkUnloading() {
+        var factory = new HiddenStubFactory();
+        var metaspace = ManagementFactory
+                .getMemoryPoolMXBeans()
+                .stream()
+                .filter(pool -> pool.getName().equals("Metaspace"))
+                .findFirst()
+                .orElseThrow();
+        var classes = ManagementFactory.getClassLoadingMXBean();
+        // Let the metaspace reach its steady state
+        for (var i = 0; i < 1000; ++i) {
+            testProvider(ProviderBuilders.createChecked(factory));
+        }
+        System.gc();
+        var used = metaspace.getUsage().getUsed();
+        var unloaded = classes.getUnloadedClassCount();
+        for (var i = 0; i < 10_000; ++i) {
+            testProvider(ProviderBuilders.createChecked(factory));
+            if (i % 1000 == 0) {
+                System.gc();
+            }
+        }
+        System.gc();
+        // 10000 providers define 30000 stubs, that would take tens of megabytes if they were never unloaded
+        assertTrue(classes.getUnloadedClassCount() - unloaded >= 20_000);
+        assertTrue(metaspace.getUsage().getUsed() - used < 8 * 1024 * 1024);
+    }
+
+    @Test
+    public void testFusedProvider() {
+        var factory = new BytecodeStubFactory(BytecodeStubFactory.FUSE_TRANSIENTS);
+        testProvider(ProviderBuilders.createChecked(factory));
+        testProvider(ProviderBuilders.createManual(factory));
+        var provider = ProviderBuilders.createChecked(factory)
+                .addTransient(Service1.class)
+                .addTransient(Service4.class)
+                .addTransient(FusedApp.class)
+                .addSingleton(Service3.class)
+                .build();
+        var first = provider.get(FusedApp.class);
+        var second = provider.get(FusedApp.class);
+        var stub = provider.getRepository().get(FusedApp.class);
+        assertAll(
+                () -> assertTrue(stub.getClass().getName().contains("FusedStub")),
+                () -> assertNotNull(first.s1),
+                () -> assertNotNull(first.s4.s1),
+                () -> assertNotSame(first.s1, first.s4.s1),
+                () -> assertNotSame(first.s4, second.s4),
+                () -> assertSame(first.s3, first.s4.s3),
+                () -> assertSame(first.s3, second.s3)
+        );
+    }
+
+    @Test
+    public void testFoldedProvider() {
+        var factory = new BytecodeStubFactory(BytecodeStubFactory.FOLD_SINGLETONS);
+        testProvider(ProviderBuilders.createChecked(factory));
+        testProvider(ProviderBuilders.createManual(factory));
+        var both = new BytecodeStubFactory(BytecodeStubFactory.FOLD_SINGLETONS | BytecodeStubFactory.FUSE_TRANSIENTS);
+        testProvider(ProviderBuilders.createChecked(both));
+        var provider = ProviderBuilders.createChecked(factory)
+                .addTransient(Service1.class)
+                .addTransient(Service4.class)
+                .addTransient(FusedApp.class)
+                .addSingleton(Service3.class)
+                .build();
+        var first = provider.get(FusedApp.class);
+        var second = provider.get(FusedApp.class);
+        var stub = provider.getRepository().get(FusedApp.class);
+        assertAll(
+                () -> assertTrue(stub.getClass().getName().contains("FoldedStub")),
+                () -> assertSame(first.s3, first.s4.s3),
+                () -> assertSame(first.s3, second.s3),
+                () -> assertSame(provider.get(Service3.class), first.s3)
+        );
+    }
+
+    @Test
+    public void testScopedProvider() {
+        var provider = ProviderBuilders.createChecked(BYTECODE_FACTORY)
+                .addScoped(Service1.class)
+                .addTransient(Service4.class)
+                .addTransient(FusedApp.class)
+                .addSingleton(Service3.class)
+                .build();
+        try (var scope = provider.createScope(); var other = provider.createScope()) {
+            var first = scope.get(FusedApp.class);
+            var second = other.get(FusedApp.class);
+            assertAll(
+                    () -> assertSame(first.s1, first.s4.s1),
+                    () -> assertSame(first.s1, scope.get(Service1.class)),
+                    () -> assertNotSame(first.s1, second.s1),
+                    () -> assertSame(first.s3, second.s3),
+                    () -> assertThrows(IllegalStateException.class, () -> provider.get(FusedApp.class))
+            );
+        }
+    }
+
+    @Test
+    public void testResolutionScopedProvider() {
+        var provider = ProviderBuilders.createChecked(BYTECODE_FACTORY)
+                .addResolutionScoped(Service1.class)
+                .addTransient(Service4.class)
+                .addTransient(FusedApp.class)
+                .addSingleton(Service3.class)
+                .build();
+        var first = provider.get(FusedApp.class);
+        var second = provider.get(FusedApp.class);
+        assertAll(
+                () -> assertSame(first.s1, first.s4.s1),
+                () -> assertNotSame(first.s1, second.s1),
+                () -> assertNotSame(provider.get(Service1.class), provider.get(Service1.class))
+        );
+    }
+
+    @Test
+    public void testTieredResolutionScopedProvider() {
+        // The upgraded stubs must be planned with the schemes, otherwise the resolution-scoped service is not shared
+        var factory = new TieredStubFactory(BYTECODE_FACTORY, BYTECODE_FACTORY, 1, Runnable::run);
+        var provider = ProviderBuilders.createChecked(factory)
+                .addResolutionScoped(Service1.class)
+                .addTransient(Service4.class)
+                .addTransient(FusedApp.class)
+                .addSingleton(Service3.class)
+                .build();
+        provider.get(FusedApp.class);
+        var app = provider.get(FusedApp.class);
+        assertAll(
+                () -> assertTrue(factory.getUpgrades() > 0),
+                () -> assertEquals(0, factory.getFailures()),
+                () -> assertSame(app.s1, app.s4.s1)
+        );
+    }
+
     public static final class Service1 {
     }
 
@@ -64,6 +235,33 @@ public class ServiceProviderTest extends Assertions {
     public static final class Service3 {
     }
 
+    public static final class Service4 {
+        final Service1 s1;
+        Service3 s3;
+
+        public Service4(Service1 s1) {
+            this.s1 = s1;
+        }
+
+        @Inject
+        public Service4 setS3(Service3 s3) {
+            this.s3 = s3;
+            return this;
+        }
+    }
+
+    public static final class FusedApp {
+        final Service1 s1;
+        final Service3 s3;
+        final Service4 s4;
+
+        public FusedApp(Service1 s1, Service3 s3, Service4 s4) {
+            this.s1 = s1;
+            this.s3 = s3;
+            this.s4 = s4;
+        }
+    }
+
     public static final class App {
         final Service1 s1;
         final Service2<String> s2;
@@ -1,47 +1,67 @@
 package io.github.amayaframework.di.asm;
 
+import com.github.romanqed.jfunc.Function0;
 import com.github.romanqed.jtype.Types;
 import io.github.amayaframework.di.scheme.ClassScheme;
 import io.github.amayaframework.di.scheme.ConstructorScheme;
 import io.github.amayaframework.di.scheme.FieldScheme;
 import io.github.amayaframework.di.scheme.MethodScheme;
+import io.github.amayaframework.di.stub.Lifetime;
+import io.github.amayaframework.di.stub.SchemeProvider;
 import io.github.amayaframework.di.stub.StubFactory;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 public class StubTest extends Assertions {
-    public void testStubFactory(StubFactory factory) throws Throwable {
-        var a1 = Types.of(String.class, new Object[]{"1"});
-        var a2 = Types.of(String.class, new Object[]{"2"});
-        var a3 = Types.of(String.class, new Object[]{"3"});
-        var field = new FieldScheme(TestClass.class.getField("field"), a1);
+    private static final Type A1 = Types.of(String.class, new Object[]{"1"});
+    private static final Type A2 = Types.of(String.class, new Object[]{"2"});
+    private static final Type A3 = Types.of(String.class, new Object[]{"3"});
+
+    private static ClassScheme createScheme() throws Throwable {
+        var field = new FieldScheme(TestClass.class.getField("field"), A1);
         var ctor = new ConstructorScheme(
                 TestClass.class.getConstructor(String.class),
-                Set.of(a2),
-                new Type[]{a2}
+                Set.of(A2),
+                new Type[]{A2}
         );
         var method = new MethodScheme(
                 TestClass.class.getMethod("mt", String.class),
-                Set.of(a3),
-                new Type[]{a3}
+                Set.of(A3),
+                new Type[]{A3}
         );
-        var scheme = new ClassScheme(
+        return new ClassScheme(
                 TestClass.class,
                 ctor,
                 Set.of(field),
                 Set.of(method)
         );
+    }
+
+    public void testStubFactory(StubFactory factory) throws Throwable {
+        var scheme = createScheme();
         var stub = factory.create(scheme, a -> {
-            if (a1.equals(a)) {
+            if (A1.equals(a)) {
                 return () -> "1";
             }
-            if (a2.equals(a)) {
+            if (A2.equals(a)) {
                 return () -> "2";
             }
-            if (a3.equals(a)) {
+            if (A3.equals(a)) {
                 return () -> "3";
             }
             throw new IllegalArgumentException("Unknown type");
@@ -59,6 +79,251 @@ public class StubTest extends Assertions {
         testStubFactory(new BytecodeStubFactory());
     }
 
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_15)
+    public void testHiddenStub() throws Throwable {
+        testStubFactory(new HiddenStubFactory());
+        // The stub is a nestmate of the target class, so it can use private members
+        var scheme = new ClassScheme(
+                PrivateClass.class,
+                new ConstructorScheme(PrivateClass.class.getDeclaredConstructor(), Set.of(), new Type[0]),
+                Set.of(new FieldScheme(PrivateClass.class.getDeclaredField("field"), A1)),
+                Set.of()
+        );
+        var stub = new HiddenStubFactory().create(scheme, type -> () -> "1");
+        assertEquals("1", ((PrivateClass) stub.invoke()).field);
+        var plain = new BytecodeStubFactory().create(scheme, type -> () -> "1");
+        assertThrows(IllegalAccessError.class, plain::invoke);
+    }
+
+    @Test
+    public void testCachedBytecodeStub() throws Throwable {
+        var directory = Files.createTempDirectory("amaya-stubs");
+        testStubFactory(new BytecodeStubFactory(BytecodeStubFactory.NO_OPTIMIZATIONS, directory));
+        List<Path> entries;
+        try (var files = Files.list(directory)) {
+            entries = files.collect(Collectors.toList());
+        }
+        assertEquals(1, entries.size());
+        var fusion = Fusion.of(createScheme());
+        var name = TestClass.class.getName().replace('.', '/') + "Stub";
+        assertEquals(StubCache.key(name, fusion) + ".class", entries.get(0).getFileName().toString());
+        // The second start must take the bytecode from the disk
+        var bytes = Files.readAllBytes(entries.get(0));
+        var cache = new StubCache(directory);
+        assertArrayEquals(bytes, cache.get(name, fusion, () -> fail("The stub must not be generated")));
+        testStubFactory(new BytecodeStubFactory(BytecodeStubFactory.NO_OPTIMIZATIONS, directory));
+    }
+
+    @Test
+    public void testStubCacheInvalidation() throws Throwable {
+        var first = Fusion.of(createScheme(new BytesLoader("a", true).define()));
+        var second = Fusion.of(createScheme(new BytesLoader("b", true).define()));
+        var hidden = Fusion.of(createScheme(new BytesLoader("a", false).define()));
+        var name = BytesLoader.NAME.replace('.', '/') + "Stub";
+        var same = Fusion.of(createScheme(new BytesLoader("a", true).define()));
+        assertEquals(StubCache.key(name, first), StubCache.key(name, same));
+        assertNotEquals(StubCache.key(name, first), StubCache.key(name, second));
+        // The class bytes are unknown, so the stub cannot be cached safely
+        assertNull(StubCache.key(name, hidden));
+    }
+
+    @Test
+    public void testInheritedMemberInvalidation() throws Throwable {
+        // The bytes of the child are the same, but the inherited method is called with another descriptor
+        var first = new HierarchyLoader("V");
+        var second = new HierarchyLoader("J");
+        assertArrayEquals(first.child, second.child);
+        var name = HierarchyLoader.CHILD.replace('.', '/') + "Stub";
+        var key = StubCache.key(name, Fusion.of(first.createScheme()));
+        assertNotNull(key);
+        assertEquals(key, StubCache.key(name, Fusion.of(new HierarchyLoader("V").createScheme())));
+        assertNotEquals(key, StubCache.key(name, Fusion.of(second.createScheme())));
+    }
+
+    private static Type type(String name) {
+        return Types.of(String.class, new Object[]{name});
+    }
+
+    private static ClassScheme createScheme(Set<Type> types) throws Throwable {
+        var ctor = new ConstructorScheme(TestClass.class.getConstructor(String.class), types, types.toArray(Type[]::new));
+        return new ClassScheme(TestClass.class, ctor, Set.of(), Set.of());
+    }
+
+    @Test
+    public void testSharedBeyondNodeBudget() throws Throwable {
+        // The transient service indirectly depends on the resolution-scoped one and on many long transient chains,
+        // so the search for the shared dependency visits more types than the inlining budget allows
+        var schemes = new HashMap<Type, ClassScheme>();
+        var lifetimes = new HashMap<Type, Lifetime>();
+        var dependencies = new HashSet<Type>();
+        for (var i = 0; i < 300; ++i) {
+            var next = (Type) null;
+            for (var j = 0; j < 10; ++j) {
+                var current = type(i + "-" + j);
+                schemes.put(current, createScheme(next == null ? Set.of() : Set.of(next)));
+                lifetimes.put(current, Lifetime.TRANSIENT);
+                next = current;
+            }
+            dependencies.add(next);
+        }
+        // The shared dependency is reached through a transient one, which is visited after most of the chains.
+        // The order of dependencies is fixed by their hash codes, so its name is picked accordingly
+        var shared = type("shared");
+        schemes.put(shared, createScheme(Set.of()));
+        lifetimes.put(shared, Lifetime.RESOLUTION);
+        var path = (Type) null;
+        var scheme = (ClassScheme) null;
+        for (var i = 0; path == null; ++i) {
+            var candidate = type("path" + i);
+            var types = new HashSet<>(dependencies);
+            types.add(candidate);
+            scheme = createScheme(types);
+            if (List.copyOf(scheme.getTypes()).indexOf(candidate) > 150) {
+                path = candidate;
+            }
+        }
+        schemes.put(path, createScheme(Set.of(shared)));
+        lifetimes.put(path, Lifetime.TRANSIENT);
+        var service = type("service");
+        schemes.put(service, scheme);
+        lifetimes.put(service, Lifetime.TRANSIENT);
+        var provider = new SchemeProvider() {
+            @Override
+            public ClassScheme getScheme(Type type) {
+                return schemes.get(type);
+            }
+
+            @Override
+            public Lifetime getLifetime(Type type) {
+                return lifetimes.get(type);
+            }
+
+            @Override
+            public Function0<Object> apply(Type type) {
+                return null;
+            }
+        };
+        var fusion = Fusion.of(createScheme(Set.of(service)), provider, false, false);
+        // The path to the shared dependency is inlined, the unrelated chains are not
+        var node = fusion.root.children.get(service);
+        assertNotNull(node);
+        assertEquals(Set.of(path), node.children.keySet());
+        assertTrue(node.children.get(path).children.get(shared).shared);
+        // With fusion, the chains visited before the path exhaust the budget, but the path must still be inlined
+        var fused = Fusion.of(createScheme(Set.of(service)), provider, true, false).root.children.get(service);
+        assertNotNull(fused);
+        assertTrue(fused.children.size() < dependencies.size());
+        assertTrue(fused.children.get(path).children.get(shared).shared);
+    }
+
+    private static ClassScheme createScheme(Class<?> clazz) throws Throwable {
+        var ctor = new ConstructorScheme(clazz.getConstructor(), Set.of(), new Type[0]);
+        return new ClassScheme(clazz, ctor, Set.of(), Set.of());
+    }
+
+    private static final class BytesLoader extends ClassLoader {
+        static final String NAME = "io.github.amayaframework.di.asm.Changing";
+        private final byte[] bytes;
+        private final boolean expose;
+
+        private BytesLoader(String field, boolean expose) {
+            super(StubTest.class.getClassLoader());
+            var writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+            var internal = NAME.replace('.', '/');
+            writer.visit(Opcodes.V11, Opcodes.ACC_PUBLIC, internal, null, "java/lang/Object", null);
+            writer.visitField(Opcodes.ACC_PUBLIC, field, "I", null, null).visitEnd();
+            var constructor = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+            constructor.visitCode();
+            constructor.visitVarInsn(Opcodes.ALOAD, 0);
+            constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+            constructor.visitInsn(Opcodes.RETURN);
+            constructor.visitMaxs(0, 0);
+            constructor.visitEnd();
+            writer.visitEnd();
+            this.bytes = writer.toByteArray();
+            this.expose = expose;
+        }
+
+        Class<?> define() {
+            return defineClass(NAME, bytes, 0, bytes.length);
+        }
+
+        @Override
+        public InputStream getResourceAsStream(String name) {
+            if (expose && name.equals(NAME.replace('.', '/') + ".class")) {
+                return new ByteArrayInputStream(bytes);
+            }
+            return super.getResourceAsStream(name);
+        }
+    }
+
+    private static final class HierarchyLoader extends ClassLoader {
+        static final String BASE = "io.github.amayaframework.di.asm.ChangingBase";
+        static final String CHILD = "io.github.amayaframework.di.asm.ChangingChild";
+        private final byte[] base;
+        private final byte[] child;
+
+        private HierarchyLoader(String ret) {
+            super(StubTest.class.getClassLoader());
+            this.base = generate(BASE, "java/lang/Object", ret);
+            this.child = generate(CHILD, BASE.replace('.', '/'), null);
+        }
+
+        private static byte[] generate(String name, String parent, String ret) {
+            var writer = new ClassWriter(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES);
+            writer.visit(Opcodes.V11, Opcodes.ACC_PUBLIC, name.replace('.', '/'), null, parent, null);
+            var constructor = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+            constructor.visitCode();
+            constructor.visitVarInsn(Opcodes.ALOAD, 0);
+            constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, parent, "<init>", "()V", false);
+            constructor.visitInsn(Opcodes.RETURN);
+            constructor.visitMaxs(0, 0);
+            constructor.visitEnd();
+            if (ret != null) {
+                var descriptor = "(Ljava/lang/String;)" + ret;
+                var method = writer.visitMethod(Opcodes.ACC_PUBLIC, "inject", descriptor, null, null);
+                method.visitCode();
+                if (ret.equals("V")) {
+                    method.visitInsn(Opcodes.RETURN);
+                } else {
+                    method.visitInsn(Opcodes.LCONST_0);
+                    method.visitInsn(Opcodes.LRETURN);
+                }
+                method.visitMaxs(0, 0);
+                method.visitEnd();
+            }
+            writer.visitEnd();
+            return writer.toByteArray();
+        }
+
+        ClassScheme createScheme() throws Throwable {
+            defineClass(BASE, base, 0, base.length);
+            var clazz = defineClass(CHILD, child, 0, child.length);
+            var ctor = new ConstructorScheme(clazz.getConstructor(), Set.of(), new Type[0]);
+            var method = new MethodScheme(clazz.getMethod("inject", String.class), Set.of(A1), new Type[]{A1});
+            return new ClassScheme(clazz, ctor, Set.of(), Set.of(method));
+        }
+
+        @Override
+        public InputStream getResourceAsStream(String name) {
+            if (name.equals(BASE.replace('.', '/') + ".class")) {
+                return new ByteArrayInputStream(base);
+            }
+            if (name.equals(CHILD.replace('.', '/') + ".class")) {
+                return new ByteArrayInputStream(child);
+            }
+            return super.getResourceAsStream(name);
+        }
+    }
+
+    public static final class PrivateClass {
+        private String field;
+
+        private PrivateClass() {
+        }
+    }
+
     public static final class TestClass {
         public String field;
         public String s;
@@ -0,0 +1,20 @@
+package io.github.amayaframework.di.mh;
+
+import com.github.romanqed.jfunc.Function0;
+
+import java.lang.invoke.MethodHandle;
+
+@SuppressWarnings("rawtypes")
+final class HandleObjectFactory implements Function0 {
+    // Not a constant for the JIT, binding it as one would require defining a class per instantiator
+    private final MethodHandle handle;
+
+    HandleObjectFactory(MethodHandle handle) {
+        this.handle = handle;
+    }
+
+    @Override
+    public Object invoke() throws Throwable {
+        return (Object) handle.invokeExact();
+    }
+}
@@ -0,0 +1,7 @@
+module io.github.amayaframework.di.mh {
+    // Imports
+    requires com.github.romanqed.jfunc;
+    requires io.github.amayaframework.di;
+    // Exports
+    exports io.github.amayaframework.di.mh;
+}
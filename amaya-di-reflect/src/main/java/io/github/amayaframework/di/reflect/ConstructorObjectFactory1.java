@@ -0,0 +1,21 @@
+package io.github.amayaframework.di.reflect;
+
+import com.github.romanqed.jfunc.Function0;
+
+import java.lang.invoke.MethodHandle;
+
+@SuppressWarnings("rawtypes")
+final class ConstructorObjectFactory1 implements Function0 {
+    private final MethodHandle constructor;
+    private final Function0 p1;
+
+    ConstructorObjectFactory1(MethodHandle constructor, Function0 p1) {
+        this.constructor = constructor;
+        this.p1 = p1;
+    }
+
+    @Override
+    public Object invoke() throws Throwable {
+        return (Object) constructor.invokeExact(p1.invoke());
+    }
+}
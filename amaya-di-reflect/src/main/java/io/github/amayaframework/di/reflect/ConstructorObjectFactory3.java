@@ -0,0 +1,25 @@
+package io.github.amayaframework.di.reflect;
+
+import com.github.romanqed.jfunc.Function0;
+
+import java.lang.invoke.MethodHandle;
+
+@SuppressWarnings("rawtypes")
+final class ConstructorObjectFactory3 implements Function0 {
+    private final MethodHandle constructor;
+    private final Function0 p1;
+    private final Function0 p2;
+    private final Function0 p3;
+
+    ConstructorObjectFactory3(MethodHandle constructor, Function0 p1, Function0 p2, Function0 p3) {
+        this.constructor = constructor;
+        this.p1 = p1;
+        this.p2 = p2;
+        this.p3 = p3;
+    }
+
+    @Override
+    public Object invoke() throws Throwable {
+        return (Object) constructor.invokeExact(p1.invoke(), p2.invoke(), p3.invoke());
+    }
+}
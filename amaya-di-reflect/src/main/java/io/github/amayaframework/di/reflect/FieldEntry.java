@@ -2,15 +2,15 @@ package io.github.amayaframework.di.reflect;
 
 import com.github.romanqed.jfunc.Function0;
 
-import java.lang.reflect.Field;
+import java.lang.invoke.MethodHandle;
 
 @SuppressWarnings("rawtypes")
 final class FieldEntry {
-    final Field field;
+    final MethodHandle handle;
     final Function0 provider;
 
-    FieldEntry(Field field, Function0 provider) {
-        this.field = field;
+    FieldEntry(MethodHandle handle, Function0 provider) {
+        this.handle = handle;
         this.provider = provider;
     }
 }
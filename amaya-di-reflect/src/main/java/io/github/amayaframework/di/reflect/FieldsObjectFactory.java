@@ -16,7 +16,7 @@ final class FieldsObjectFactory implements Function0<Object> {
     public Object invoke() throws Throwable {
         var ret = constructor.invoke();
         for (var entry : fields) {
-            entry.field.set(ret, entry.provider.invoke());
+            entry.handle.invokeExact(ret, entry.provider.invoke());
         }
         return ret;
     }
@@ -23,7 +23,7 @@ final class FullObjectFactory implements Function0<Object> {
             method.run(ret);
         }
         for (var entry : fields) {
-            entry.field.set(ret, entry.provider.invoke());
+            entry.handle.invokeExact(ret, entry.provider.invoke());
         }
         return ret;
     }
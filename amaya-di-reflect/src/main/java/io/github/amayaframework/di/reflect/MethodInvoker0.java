@@ -0,0 +1,19 @@
+package io.github.amayaframework.di.reflect;
+
+import com.github.romanqed.jfunc.Runnable1;
+
+import java.lang.invoke.MethodHandle;
+
+@SuppressWarnings("rawtypes")
+final class MethodInvoker0 implements Runnable1 {
+    private final MethodHandle method;
+
+    MethodInvoker0(MethodHandle method) {
+        this.method = method;
+    }
+
+    @Override
+    public void run(Object object) throws Throwable {
+        method.invokeExact(object);
+    }
+}
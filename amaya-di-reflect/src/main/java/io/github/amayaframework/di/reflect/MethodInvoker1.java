@@ -0,0 +1,22 @@
+package io.github.amayaframework.di.reflect;
+
+import com.github.romanqed.jfunc.Function0;
+import com.github.romanqed.jfunc.Runnable1;
+
+import java.lang.invoke.MethodHandle;
+
+@SuppressWarnings("rawtypes")
+final class MethodInvoker1 implements Runnable1 {
+    private final MethodHandle method;
+    private final Function0 p1;
+
+    MethodInvoker1(MethodHandle method, Function0 p1) {
+        this.method = method;
+        this.p1 = p1;
+    }
+
+    @Override
+    public void run(Object object) throws Throwable {
+        method.invokeExact(object, p1.invoke());
+    }
+}
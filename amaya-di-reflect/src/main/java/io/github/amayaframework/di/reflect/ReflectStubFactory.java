@@ -2,6 +2,7 @@ package io.github.amayaframework.di.reflect;
 
 import com.github.romanqed.jeflect.cloner.NoopReflectCloner;
 import com.github.romanqed.jeflect.cloner.ReflectCloner;
+import com.github.romanqed.jfunc.Exceptions;
 import com.github.romanqed.jfunc.Function0;
 import com.github.romanqed.jfunc.Runnable1;
 import io.github.amayaframework.di.scheme.ClassScheme;
@@ -11,14 +12,26 @@ import io.github.amayaframework.di.scheme.MethodScheme;
 import io.github.amayaframework.di.stub.StubFactory;
 import io.github.amayaframework.di.stub.TypeProvider;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.Objects;
 import java.util.Set;
 
 /**
  * A factory that creates instantiators using member accessors from the Reflection API.
+ * <br>
+ * Constructors and methods with up to {@value #MAX_ARITY} dependencies are invoked through
+ * the method handles unreflected from them, so no argument array is allocated on each call.
+ * Fields are set through the setter method handles.
  */
 public final class ReflectStubFactory implements StubFactory {
+    private static final int MAX_ARITY = 3;
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
     private final ReflectCloner cloner;
 
     /**
@@ -44,6 +57,21 @@ public final class ReflectStubFactory implements StubFactory {
         this.cloner = new NoopReflectCloner();
     }
 
+    private static MethodHandle unreflect(Constructor<?> constructor) {
+        // The constructor is accessible, so there will be no access checks
+        return Exceptions.suppress(() -> LOOKUP.unreflectConstructor(constructor));
+    }
+
+    private static MethodHandle unreflect(Method method) {
+        return Exceptions.suppress(() -> LOOKUP.unreflect(method));
+    }
+
+    private static MethodHandle unreflectSetter(Field field) {
+        // Unlike var handles, setters honor the accessibility of the field, so there will be no access checks
+        var handle = Exceptions.suppress(() -> LOOKUP.unreflectSetter(field));
+        return handle.asType(MethodType.methodType(void.class, Object.class, Object.class));
+    }
+
     @SuppressWarnings("rawtypes")
     private Function0 wrapConstructor(ConstructorScheme scheme, TypeProvider provider) {
         var mapping = scheme.getMapping();
@@ -57,7 +85,18 @@ public final class ReflectStubFactory implements StubFactory {
         for (var i = 0; i < length; ++i) {
             providers[i] = provider.apply(mapping[i]);
         }
-        return new ConstructorObjectFactory(target, providers);
+        if (length > MAX_ARITY) {
+            return new ConstructorObjectFactory(target, providers);
+        }
+        var handle = unreflect(target).asType(MethodType.genericMethodType(length));
+        switch (length) {
+            case 1:
+                return new ConstructorObjectFactory1(handle, providers[0]);
+            case 2:
+                return new ConstructorObjectFactory2(handle, providers[0], providers[1]);
+            default:
+                return new ConstructorObjectFactory3(handle, providers[0], providers[1], providers[2]);
+        }
     }
 
     @SuppressWarnings("rawtypes")
@@ -70,17 +109,31 @@ public final class ReflectStubFactory implements StubFactory {
         for (var i = 0; i < length; ++i) {
             providers[i] = provider.apply(mapping[i]);
         }
-        if (Modifier.isStatic(target.getModifiers())) {
-            return new StaticMethodInvoker(target, providers);
+        if (length > MAX_ARITY) {
+            if (Modifier.isStatic(target.getModifiers())) {
+                return new StaticMethodInvoker(target, providers);
+            }
+            return new VirtualMethodInvoker(target, providers);
+        }
+        // Both virtual and static methods take the instance as the first argument
+        var handle = unreflect(target).asType(MethodType.genericMethodType(length + 1).changeReturnType(void.class));
+        switch (length) {
+            case 0:
+                return new MethodInvoker0(handle);
+            case 1:
+                return new MethodInvoker1(handle, providers[0]);
+            case 2:
+                return new MethodInvoker2(handle, providers[0], providers[1]);
+            default:
+                return new MethodInvoker3(handle, providers[0], providers[1], providers[2]);
         }
-        return new VirtualMethodInvoker(target, providers);
     }
 
     private FieldEntry wrapField(FieldScheme scheme, TypeProvider provider) {
         var target = cloner.clone(scheme.getTarget());
         target.setAccessible(true);
         var found = provider.apply(scheme.getType());
-        return new FieldEntry(target, found);
+        return new FieldEntry(unreflectSetter(target), found);
     }
 
     @SuppressWarnings("rawtypes")
@@ -4,6 +4,7 @@ import com.github.romanqed.jtype.Types;
 import io.github.amayaframework.di.ProviderBuilders;
 import io.github.amayaframework.di.ServiceProvider;
 import io.github.amayaframework.di.ServiceProviderBuilder;
+import io.github.amayaframework.di.reflect.inherited.Service;
 import io.github.amayaframework.di.stub.StubFactory;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -50,6 +51,16 @@ public class ServiceProviderTest extends Assertions {
         testProvider(ProviderBuilders.createManual(REFLECT_FACTORY));
     }
 
+    @Test
+    public void testInheritedField() {
+        // The field is public, but declared in a package-private class from another package
+        var provider = ProviderBuilders.createChecked(REFLECT_FACTORY)
+                .addTransient(Service.class)
+                .addInstance(String.class, "SomeString")
+                .build();
+        assertEquals("SomeString", provider.get(Service.class).value);
+    }
+
     public static final class Service1 {
     }
 
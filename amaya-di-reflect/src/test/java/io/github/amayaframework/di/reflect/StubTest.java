@@ -59,6 +59,94 @@ public class StubTest extends Assertions {
         testStubFactory(new ReflectStubFactory());
     }
 
+    @Test
+    public void testArities() throws Throwable {
+        var types = new Type[5];
+        for (var i = 0; i < types.length; ++i) {
+            types[i] = Types.of(String.class, new Object[]{String.valueOf(i)});
+        }
+        var number = Types.of(Integer.class, new Object[]{"number"});
+        var ctor = new ConstructorScheme(
+                ArityClass.class.getConstructor(String.class, String.class),
+                Set.of(types[0], types[1]),
+                new Type[]{types[0], types[1]}
+        );
+        var methods = Set.of(
+                new MethodScheme(
+                        ArityClass.class.getMethod("set0"),
+                        Set.of(),
+                        new Type[0]
+                ),
+                new MethodScheme(
+                        ArityClass.class.getMethod("set3", String.class, String.class, String.class),
+                        Set.of(types[0], types[1], types[2]),
+                        new Type[]{types[0], types[1], types[2]}
+                ),
+                new MethodScheme(
+                        ArityClass.class.getMethod("set4", String.class, String.class, String.class, String.class),
+                        Set.of(types),
+                        new Type[]{types[0], types[1], types[2], types[3]}
+                ),
+                new MethodScheme(
+                        ArityClass.class.getMethod("setStatic", ArityClass.class, String.class, String.class),
+                        Set.of(types[3], types[4]),
+                        new Type[]{types[3], types[4]}
+                )
+        );
+        var field = new FieldScheme(ArityClass.class.getField("number"), number);
+        var scheme = new ClassScheme(ArityClass.class, ctor, Set.of(field), methods);
+        var stub = new ReflectStubFactory().create(scheme, type -> {
+            if (number.equals(type)) {
+                return () -> 5;
+            }
+            for (var i = 0; i < types.length; ++i) {
+                if (types[i].equals(type)) {
+                    var value = String.valueOf(i);
+                    return () -> value;
+                }
+            }
+            throw new IllegalArgumentException("Unknown type");
+        });
+        var object = (ArityClass) stub.invoke();
+        assertAll(
+                () -> assertEquals("01", object.ctor),
+                () -> assertTrue(object.set0),
+                () -> assertEquals("012", object.set3),
+                () -> assertEquals("0123", object.set4),
+                () -> assertEquals("34", object.setStatic),
+                () -> assertEquals(5, object.number)
+        );
+    }
+
+    public static final class ArityClass {
+        public final String ctor;
+        public boolean set0;
+        public String set3;
+        public String set4;
+        public String setStatic;
+        public int number;
+
+        public ArityClass(String s1, String s2) {
+            this.ctor = s1 + s2;
+        }
+
+        public static void setStatic(ArityClass object, String s1, String s2) {
+            object.setStatic = s1 + s2;
+        }
+
+        public void set0() {
+            this.set0 = true;
+        }
+
+        public void set3(String s1, String s2, String s3) {
+            this.set3 = s1 + s2 + s3;
+        }
+
+        public void set4(String s1, String s2, String s3, String s4) {
+            this.set4 = s1 + s2 + s3 + s4;
+        }
+    }
+
     public static final class TestClass {
         public String field;
         public String s;
@@ -0,0 +1,8 @@
+package io.github.amayaframework.di.reflect.inherited;
+
+import io.github.amayaframework.di.Inject;
+
+class Base {
+    @Inject
+    public String value;
+}
@@ -0,0 +1,4 @@
+package io.github.amayaframework.di.reflect.inherited;
+
+public class Service extends Base {
+}
@@ -0,0 +1,47 @@
+package com.github.romanqed.jgraph;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class GraphBenchmark {
+    private static final int NODES = 100_000;
+    private static final int EDGES = 1_000_000;
+
+    private Graph<Integer> sparse;
+    private Graph<Integer> chain;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // Random edges, most of the nodes end up in one large component
+        var random = new Random(42);
+        sparse = new HashGraph<>();
+        for (var i = 0; i < EDGES; ++i) {
+            sparse.addEdge(random.nextInt(NODES), random.nextInt(NODES));
+        }
+        // An acyclic graph, like the dependency graph of services, with a search depth of all nodes
+        chain = new HashGraph<>();
+        for (var i = 1; i < NODES; ++i) {
+            for (var j = 1; j <= EDGES / NODES && j <= i; ++j) {
+                chain.addEdge(i, i - j);
+            }
+        }
+    }
+
+    @Benchmark
+    public void benchRandomSCC(Blackhole blackhole) {
+        blackhole.consume(GraphUtil.findSCC(sparse));
+    }
+
+    @Benchmark
+    public void benchAcyclicSCC(Blackhole blackhole) {
+        blackhole.consume(GraphUtil.findSCC(chain));
+    }
+}
@@ -9,81 +9,6 @@ public final class GraphUtil {
     private GraphUtil() {
     }
 
-    private static <E> List<Node<E>> graphToNodes(Graph<E> graph) {
-        var ret = new LinkedList<Node<E>>();
-        var map = new HashMap<E, Node<E>>();
-        for (var node : graph) {
-            var t = new Node<>(node);
-            ret.add(t);
-            map.put(node, t);
-        }
-        for (var node : ret) {
-            var nodes = graph.getAdjacentNodes(node.value);
-            if (nodes == null || nodes.isEmpty()) {
-                node.adjacents = null;
-                continue;
-            }
-            var adjacents = new ArrayList<Node<E>>();
-            nodes.forEach(e -> adjacents.add(map.get(e)));
-            node.adjacents = adjacents;
-        }
-        return ret;
-    }
-
-    private static <E> List<E> collectComponents(Node<E> head, Deque<Node<E>> deque) {
-        var ret = new LinkedList<E>();
-        var node = (Node<E>) null;
-        do {
-            node = deque.pop();
-            node.onStack = false;
-            ret.add(node.value);
-        } while (node != head);
-        return ret;
-    }
-
-    private static <E> int processNode(Node<E> node, Deque<Node<E>> deque, List<List<E>> components, int time) {
-        var stack = new LinkedList<Entry<E>>();
-        stack.push(new Entry<>(node, 0));
-        while (!stack.isEmpty()) {
-            var entry = stack.pop();
-            var current = entry.node;
-            var local = entry.time;
-            var adjacents = current.adjacents;
-            if (local != 0) {
-                current.low = Math.min(current.low, adjacents.get(local - 1).low);
-            } else {
-                current.index = time;
-                current.low = time;
-                ++time;
-                deque.push(current);
-                current.onStack = true;
-            }
-            if (adjacents == null) {
-                components.add(collectComponents(current, deque));
-                continue;
-            }
-            var size = adjacents.size();
-            while (local < size && adjacents.get(local).index != -1) {
-                var w = adjacents.get(local);
-                if (w.onStack) {
-                    current.low = Math.min(current.low, w.index);
-                }
-                ++local;
-            }
-            if (local < size) {
-                var w = adjacents.get(local);
-                stack.push(new Entry<>(current, local + 1));
-                stack.push(new Entry<>(w, 0));
-                continue;
-            }
-            if (current.low != current.index) {
-                continue;
-            }
-            components.add(collectComponents(current, deque));
-        }
-        return time;
-    }
-
     /**
      * Searches for strongly connected components in the graph (cyclic connections).
      * Uses Tarjan's iterative algorithm.
@@ -95,16 +20,134 @@ public final class GraphUtil {
      */
     public static <E> List<List<E>> findSCC(Graph<E> graph) {
         Objects.requireNonNull(graph);
-        var ret = new LinkedList<List<E>>();
-        var nodes = graphToNodes(graph);
-        var time = 0;
-        var deque = new LinkedList<Node<E>>();
-        for (var node : nodes) {
-            if (node.index != -1) {
-                continue;
+        return new Tarjan<>(graph).find();
+    }
+
+    /**
+     * The graph mapped to ints once, with the adjacency stored in compressed sparse row arrays:
+     * the adjacent nodes of the node i are targets[offsets[i]] .. targets[offsets[i + 1] - 1].
+     */
+    private static final class Tarjan<E> {
+        private final Object[] values;
+        private final int[] offsets;
+        private final int[] targets;
+        private final int[] index;
+        private final int[] low;
+        private final boolean[] onStack;
+        // The nodes of the components being collected
+        private final int[] stack;
+        // The emulated call stack: the node and the position of the next adjacent node to be visited
+        private final int[] calls;
+        private final int[] positions;
+        private int top;
+        private int time;
+
+        private Tarjan(Graph<E> graph) {
+            var size = graph.size();
+            var values = new Object[size];
+            var indexes = new HashMap<E, Integer>(size * 4 / 3 + 1);
+            var count = 0;
+            for (var node : graph) {
+                values[count] = node;
+                indexes.put(node, count++);
+            }
+            var adjacents = new Set<?>[count];
+            var offsets = new int[count + 1];
+            for (var i = 0; i < count; ++i) {
+                @SuppressWarnings("unchecked")
+                var nodes = graph.getAdjacentNodes((E) values[i]);
+                adjacents[i] = nodes;
+                offsets[i + 1] = offsets[i] + (nodes == null ? 0 : nodes.size());
+            }
+            var targets = new int[offsets[count]];
+            for (var i = 0; i < count; ++i) {
+                var nodes = adjacents[i];
+                if (nodes == null) {
+                    continue;
+                }
+                var position = offsets[i];
+                for (var node : nodes) {
+                    targets[position++] = indexes.get(node);
+                }
+            }
+            this.values = values;
+            this.offsets = offsets;
+            this.targets = targets;
+            this.index = new int[count];
+            this.low = new int[count];
+            this.onStack = new boolean[count];
+            this.stack = new int[count];
+            this.calls = new int[count];
+            this.positions = new int[count];
+            Arrays.fill(index, -1);
+        }
+
+        private void visit(int node) {
+            index[node] = time;
+            low[node] = time;
+            ++time;
+            stack[top++] = node;
+            onStack[node] = true;
+        }
+
+        @SuppressWarnings("unchecked")
+        private List<E> collectComponent(int head) {
+            var ret = new ArrayList<E>();
+            var node = -1;
+            do {
+                node = stack[--top];
+                onStack[node] = false;
+                ret.add((E) values[node]);
+            } while (node != head);
+            return ret;
+        }
+
+        private void process(int root, List<List<E>> components) {
+            var depth = 0;
+            calls[0] = root;
+            positions[0] = offsets[root];
+            visit(root);
+            while (depth >= 0) {
+                var current = calls[depth];
+                var position = positions[depth];
+                var end = offsets[current + 1];
+                var descended = false;
+                while (position < end) {
+                    var next = targets[position++];
+                    if (index[next] == -1) {
+                        positions[depth++] = position;
+                        calls[depth] = next;
+                        positions[depth] = offsets[next];
+                        visit(next);
+                        descended = true;
+                        break;
+                    }
+                    if (onStack[next]) {
+                        low[current] = Math.min(low[current], index[next]);
+                    }
+                }
+                if (descended) {
+                    continue;
+                }
+                if (low[current] == index[current]) {
+                    components.add(collectComponent(current));
+                }
+                // Return to the caller, passing the low-link of the visited node
+                if (--depth >= 0) {
+                    var caller = calls[depth];
+                    low[caller] = Math.min(low[caller], low[current]);
+                }
+            }
+        }
+
+        private List<List<E>> find() {
+            var ret = new ArrayList<List<E>>();
+            for (var i = 0; i < values.length; ++i) {
+                if (index[i] == -1) {
+                    process(i, ret);
+                }
             }
-            time = processNode(node, deque, ret, time);
+            return ret;
         }
-        return ret;
     }
 }
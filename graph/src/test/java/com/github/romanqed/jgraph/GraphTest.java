@@ -154,4 +154,24 @@ public class GraphTest extends Assertions {
     public void testHashSSC5() {
         testSSC5(new HashGraph<>());
     }
+
+    @Test
+    public void testLargeSSC() {
+        // Chained cycles of 10 nodes, the depth of the search reaches the number of nodes
+        var graph = new HashGraph<Integer>();
+        var size = 100_000;
+        var cycles = new HashSet<Set<Integer>>();
+        for (var start = 0; start < size; start += 10) {
+            var cycle = new HashSet<Integer>();
+            for (var i = start; i < start + 10; ++i) {
+                graph.addEdge(i, i + 1 == start + 10 ? start : i + 1);
+                cycle.add(i);
+            }
+            if (start + 10 < size) {
+                graph.addEdge(start, start + 10);
+            }
+            cycles.add(cycle);
+        }
+        testSSC(graph, cycles);
+    }
 }
@@ -2,20 +2,24 @@ package io.github.amayaframework.di;
 
 import com.github.romanqed.jfunc.Function0;
 import com.github.romanqed.jfunc.Function1;
-import com.github.romanqed.jfunc.LazyFunction0;
 import com.github.romanqed.jtype.TypeUtil;
+import com.github.romanqed.jtype.Types;
+import io.github.amayaframework.di.scheme.TypeInterner;
+import io.github.amayaframework.di.stub.Lifetime;
 
 import java.lang.reflect.Type;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Objects;
+import java.util.*;
 
 /**
  * A class that provides a skeletal implementation of the {@link ServiceProviderBuilder},
  * containing implementations of all methods, structures for subsequent analysis,
  * and a reset mechanism to the initial state.
+ * The registered types are interned by {@link TypeInterner}, so they match the types of the class schemes by identity.
  */
 public abstract class AbstractProviderBuilder implements ServiceProviderBuilder {
+    // Shared wrappers, which allow to determine the lifetime of the registered service
+    private static final ServiceWrapper<Object> TRANSIENT = s -> s;
+    private static final ServiceWrapper<Object> SINGLETON = SingletonFunction0::new;
 
     /**
      * The map contains "strong" services, that is, they definitely do not have dependencies.
@@ -24,9 +28,15 @@ public abstract class AbstractProviderBuilder implements ServiceProviderBuilder
 
     /**
      * A map containing "weak" services, that is, having dependencies that need to be resolved.
+     * The services are kept in the order of registration.
      */
     protected Map<Type, Entry> any;
 
+    /**
+     * A map containing multi-bindings, that is, collections assembled from the services of the element types.
+     */
+    protected Map<Type, Multi> multi;
+
     /**
      * The {@link ServiceRepository} instance used, may be null
      */
@@ -45,10 +55,21 @@ public abstract class AbstractProviderBuilder implements ServiceProviderBuilder
      */
     protected void reset() {
         this.strong = new HashMap<>();
-        this.any = new HashMap<>();
+        this.any = new LinkedHashMap<>();
+        this.multi = new HashMap<>();
         this.repository = null;
     }
 
+    @SuppressWarnings("unchecked")
+    private static <T> ServiceWrapper<T> singleton() {
+        return (ServiceWrapper<T>) SINGLETON;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ServiceWrapper<T> transientWrapper() {
+        return (ServiceWrapper<T>) TRANSIENT;
+    }
+
     /**
      * Determines whether a type implementation exists.
      *
@@ -79,18 +100,18 @@ public abstract class AbstractProviderBuilder implements ServiceProviderBuilder
             throw new IllegalArgumentException("The implementation is not a child class of the type type");
         }
         strong.remove(type);
-        any.put(type, Entry.of(implementation, wrapper));
+        any.put(TypeInterner.intern(type), Entry.of(implementation, wrapper));
         return this;
     }
 
     @Override
     public ServiceProviderBuilder addSingleton(Type type, Class<?> implementation) {
-        return addService(type, implementation, LazyFunction0::new);
+        return addService(type, implementation, singleton());
     }
 
     @Override
     public ServiceProviderBuilder addTransient(Type type, Class<?> implementation) {
-        return addService(type, implementation, s -> s);
+        return addService(type, implementation, transientWrapper());
     }
 
     @Override
@@ -112,12 +133,64 @@ public abstract class AbstractProviderBuilder implements ServiceProviderBuilder
 
     @Override
     public <T> ServiceProviderBuilder addSingleton(Class<T> type, Class<? extends T> implementation) {
-        return addService(type, implementation, LazyFunction0::new);
+        return addService(type, implementation, singleton());
     }
 
     @Override
     public <T> ServiceProviderBuilder addTransient(Class<T> type, Class<? extends T> implementation) {
-        return addService(type, implementation, s -> s);
+        return addService(type, implementation, transientWrapper());
+    }
+
+    @Override
+    public ServiceProviderBuilder addScoped(Type type, Class<?> implementation) {
+        // Non-null checks
+        Objects.requireNonNull(type);
+        Objects.requireNonNull(implementation);
+        // Check if the implementation is a child class of a given type
+        var parent = TypeUtil.getRawType(type);
+        if (!parent.isAssignableFrom(implementation)) {
+            throw new IllegalArgumentException("The implementation is not a child class of the type type");
+        }
+        strong.remove(type);
+        // The wrapper will be set on build, when the scope slot is known
+        any.put(TypeInterner.intern(type), new Entry(implementation, null, Lifetime.SCOPED));
+        return this;
+    }
+
+    @Override
+    public <T> ServiceProviderBuilder addScoped(Class<T> type, Class<? extends T> implementation) {
+        return addScoped((Type) type, implementation);
+    }
+
+    @Override
+    public ServiceProviderBuilder addScoped(Class<?> type) {
+        return addScoped(type, type);
+    }
+
+    @Override
+    public ServiceProviderBuilder addResolutionScoped(Type type, Class<?> implementation) {
+        // Non-null checks
+        Objects.requireNonNull(type);
+        Objects.requireNonNull(implementation);
+        // Check if the implementation is a child class of a given type
+        var parent = TypeUtil.getRawType(type);
+        if (!parent.isAssignableFrom(implementation)) {
+            throw new IllegalArgumentException("The implementation is not a child class of the type type");
+        }
+        strong.remove(type);
+        // The stub itself is used, sharing is up to the stub factory
+        any.put(TypeInterner.intern(type), new Entry(implementation, TRANSIENT, Lifetime.RESOLUTION));
+        return this;
+    }
+
+    @Override
+    public <T> ServiceProviderBuilder addResolutionScoped(Class<T> type, Class<? extends T> implementation) {
+        return addResolutionScoped((Type) type, implementation);
+    }
+
+    @Override
+    public ServiceProviderBuilder addResolutionScoped(Class<?> type) {
+        return addResolutionScoped(type, type);
     }
 
     @Override
@@ -127,12 +200,12 @@ public abstract class AbstractProviderBuilder implements ServiceProviderBuilder
 
     @Override
     public ServiceProviderBuilder addSingleton(Class<?> type) {
-        return addService(type, LazyFunction0::new);
+        return addService(type, singleton());
     }
 
     @Override
     public ServiceProviderBuilder addTransient(Class<?> type) {
-        return addService(type, s -> s);
+        return addService(type, transientWrapper());
     }
 
     @Override
@@ -141,7 +214,32 @@ public abstract class AbstractProviderBuilder implements ServiceProviderBuilder
         Objects.requireNonNull(type);
         Objects.requireNonNull(supplier);
         any.remove(type);
-        strong.put(type, (Function0<Object>) supplier);
+        strong.put(TypeInterner.intern(type), (Function0<Object>) supplier);
+        return this;
+    }
+
+    private void addToCollection(Class<?> collection, Type type, Type element, boolean set) {
+        // Non-null checks
+        Objects.requireNonNull(type);
+        Objects.requireNonNull(element);
+        // Check if the element is a child class of a given type
+        var parent = TypeUtil.getRawType(type);
+        if (!parent.isAssignableFrom(TypeUtil.getRawType(element))) {
+            throw new IllegalArgumentException("The element is not a child class of the type");
+        }
+        var key = TypeInterner.intern(Types.of(collection, type));
+        multi.computeIfAbsent(key, k -> new Multi(set)).elements.add(TypeInterner.intern(element));
+    }
+
+    @Override
+    public ServiceProviderBuilder addToList(Type type, Type element) {
+        addToCollection(List.class, type, element, false);
+        return this;
+    }
+
+    @Override
+    public ServiceProviderBuilder addToSet(Type type, Type element) {
+        addToCollection(Set.class, type, element, true);
         return this;
     }
 
@@ -150,6 +248,7 @@ public abstract class AbstractProviderBuilder implements ServiceProviderBuilder
         Objects.requireNonNull(type);
         strong.remove(type);
         any.remove(type);
+        multi.remove(type);
         return this;
     }
 
@@ -182,15 +281,31 @@ public abstract class AbstractProviderBuilder implements ServiceProviderBuilder
     protected static final class Entry {
         Class<?> implementation;
         Function1<Function0<?>, Function0<?>> wrapper;
+        Lifetime lifetime;
 
         @SuppressWarnings("unchecked")
-        Entry(Class<?> implementation, Function1<?, ?> wrapper) {
+        Entry(Class<?> implementation, Function1<?, ?> wrapper, Lifetime lifetime) {
             this.implementation = implementation;
             this.wrapper = (Function1<Function0<?>, Function0<?>>) wrapper;
+            this.lifetime = lifetime;
         }
 
         static <T> Entry of(Class<? extends T> implementation, Function1<Function0<T>, Function0<T>> wrapper) {
-            return new Entry(implementation, wrapper);
+            var lifetime = wrapper == TRANSIENT ? Lifetime.TRANSIENT
+                    : wrapper == SINGLETON ? Lifetime.SINGLETON
+                    : Lifetime.CUSTOM;
+            return new Entry(implementation, wrapper, lifetime);
+        }
+    }
+
+    protected static final class Multi {
+        final Set<Type> elements;
+        final boolean set;
+
+        Multi(boolean set) {
+            // Keep the order of registration, the repeated elements are ignored
+            this.elements = new LinkedHashSet<>();
+            this.set = set;
         }
     }
 }
@@ -6,28 +6,49 @@ import com.github.romanqed.jgraph.GraphUtil;
 import com.github.romanqed.jgraph.HashGraph;
 import io.github.amayaframework.di.scheme.ClassScheme;
 import io.github.amayaframework.di.scheme.SchemeFactory;
+import io.github.amayaframework.di.stub.Lifetime;
 import io.github.amayaframework.di.stub.StubFactory;
 
 import java.lang.reflect.Type;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Objects;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * A {@link ServiceProviderBuilder} implementation that performs static analysis of the collected set of services.
- * Checks for all required dependencies and analyzes the dependency graph for cycles.
+ * Checks for all required dependencies, analyzes the dependency graph for cycles and checks that the scoped services
+ * are not captured by the services living longer than a scope.
  * Creates {@link ServiceProvider} according to the transaction principle, that is, until the build is successfully
  * completed, no side effects will be applied.
  */
 public class CheckedProviderBuilder extends AbstractProviderBuilder {
     public static final int VALIDATE_CYCLES = 0b01;
     public static final int VALIDATE_MISSING_TYPES = 0b10;
-    public static final int VALIDATE_ALL = VALIDATE_CYCLES | VALIDATE_MISSING_TYPES;
+    public static final int VALIDATE_LIFETIMES = 0b100;
+    public static final int VALIDATE_ALL = VALIDATE_CYCLES | VALIDATE_MISSING_TYPES | VALIDATE_LIFETIMES;
+    private static final int SCHEME_CHUNK = 64;
 
     private final SchemeFactory schemeFactory;
     private final StubFactory stubFactory;
     private final int checks;
+    private boolean frozen;
+    private boolean lazy;
+    private boolean rebuildable;
+
+    private Executor schemeExecutor;
+    private Executor eagerExecutor;
+    private BiConsumer<Type, Long> eagerReporter;
+    // Set only for the builders of child providers
+    private ServiceRepository parent;
+    private ScopeContext parentContext;
+    // Set only for the builders of incremental rebuilds
+    private Snapshot base;
+    // Kept by the builders held by the built providers, if they can be rebuilt incrementally
+    private Snapshot snapshot;
 
     /**
      * Constructs {@link CheckedProviderBuilder} instance with the specified scheme, stub factories and check set.
@@ -53,6 +74,222 @@ public class CheckedProviderBuilder extends AbstractProviderBuilder {
         this(schemeFactory, stubFactory, VALIDATE_ALL);
     }
 
+    /**
+     * Sets whether the built {@link ServiceProvider} will use a {@link FrozenServiceRepository}.
+     * If enabled, the filled repository is converted into an immutable snapshot at the end of the build,
+     * so the type lookup does not depend on {@link java.util.HashMap} anymore.
+     * In addition, the built provider caches instantiators requested by raw classes
+     * in a {@link ClassValue}, which turns such lookups into identity hits.
+     * Unlike the repository, this setting is not reset after the build.
+     *
+     * @param frozen true, if the repository should be frozen, false otherwise
+     * @return this {@link CheckedProviderBuilder} instance
+     */
+    public CheckedProviderBuilder setFrozen(boolean frozen) {
+        this.frozen = frozen;
+        return this;
+    }
+
+    /**
+     * Sets whether the build is lazy. If enabled, the build only fills the repository with placeholders,
+     * and the class scheme, the checks and the stub of a type are made on its first resolution
+     * (see {@link OnDemandProvider}). The checks cover only the dependencies reachable from the resolved type,
+     * so the errors are reported by the first {@link ServiceProvider#get(Type)} instead of the build.
+     * Suitable for processes that use only a small part of the registered services.
+     * The lazy build cannot be combined with eager initialization, and the scheme executor is not used.
+     * Unlike the repository, this setting is not reset after the build.
+     *
+     * @param lazy true, if the build should be lazy, false otherwise
+     * @return this {@link CheckedProviderBuilder} instance
+     */
+    public CheckedProviderBuilder setLazy(boolean lazy) {
+        this.lazy = lazy;
+        return this;
+    }
+
+    /**
+     * Sets whether the built {@link ServiceProvider} can be rebuilt incrementally,
+     * see {@link ServiceProvider#rebuild(Consumer)}. If enabled, the provider keeps the registrations,
+     * the class schemes and the instantiators it has been built from, otherwise
+     * {@link ServiceProvider#rebuild(Consumer)} throws {@link UnsupportedOperationException}.
+     * Unlike the repository, this setting is not reset after the build.
+     *
+     * @param rebuildable true, if the provider should support rebuilds, false otherwise
+     * @return this {@link CheckedProviderBuilder} instance
+     */
+    public CheckedProviderBuilder setRebuildable(boolean rebuildable) {
+        this.rebuildable = rebuildable;
+        return this;
+    }
+
+    /**
+     * Sets the executor used to create class schemes concurrently.
+     * The implementations are split into chunks, which are processed in parallel,
+     * and the results are merged in the order of registration,
+     * so the build result and the reported error do not depend on the scheduling.
+     * The used {@link SchemeFactory} must be thread-safe.
+     * Unlike the repository, this setting is not reset after the build.
+     *
+     * @param executor the specified executor, or null to create schemes sequentially
+     * @return this {@link CheckedProviderBuilder} instance
+     */
+    public CheckedProviderBuilder setSchemeExecutor(Executor executor) {
+        this.schemeExecutor = executor;
+        return this;
+    }
+
+    /**
+     * Enables eager initialization of singletons, performed at the end of the build.
+     * The dependency graph is split into topological levels, and the singletons of each level
+     * are instantiated in parallel on the specified executor, after all singletons of the previous levels,
+     * so independent heavy services are warmed up concurrently without waiting for each other.
+     * After the initialization, the reporter receives the initialization time of each singleton in nanoseconds.
+     * Unlike the repository, this setting is not reset after the build.
+     *
+     * @param executor the executor used for initialization, or null to disable eager initialization
+     * @param reporter the consumer of per-service initialization times, may be null
+     * @return this {@link CheckedProviderBuilder} instance
+     */
+    public CheckedProviderBuilder setEagerInit(Executor executor, BiConsumer<Type, Long> reporter) {
+        this.eagerExecutor = executor;
+        this.eagerReporter = reporter;
+        return this;
+    }
+
+    /**
+     * Enables eager initialization of singletons on the {@link ForkJoinPool#commonPool()}.
+     * See {@link CheckedProviderBuilder#setEagerInit(Executor, BiConsumer)} for details.
+     *
+     * @param eager true, if singletons should be initialized during the build, false otherwise
+     * @return this {@link CheckedProviderBuilder} instance
+     */
+    public CheckedProviderBuilder setEagerInit(boolean eager) {
+        return setEagerInit(eager ? ForkJoinPool.commonPool() : null, null);
+    }
+
+    /**
+     * Creates a new builder of the same kind with the specified factories and check set.
+     * Used to create the builders of child providers, see {@link ServiceProvider#createChild(Consumer)}.
+     *
+     * @param schemeFactory the specified scheme factory
+     * @param stubFactory   the specified stub factory
+     * @param checks        the specified set of applied checks
+     * @return the new {@link CheckedProviderBuilder} instance
+     */
+    protected CheckedProviderBuilder newBuilder(SchemeFactory schemeFactory, StubFactory stubFactory, int checks) {
+        return new CheckedProviderBuilder(schemeFactory, stubFactory, checks);
+    }
+
+    private CheckedProviderBuilder createChildBuilder() {
+        var ret = newBuilder(schemeFactory, stubFactory, checks);
+        ret.frozen = frozen;
+        ret.lazy = lazy;
+        ret.rebuildable = rebuildable;
+        ret.schemeExecutor = schemeExecutor;
+        ret.eagerExecutor = eagerExecutor;
+        ret.eagerReporter = eagerReporter;
+        return ret;
+    }
+
+    // Called on the builder kept by the built provider, which is never modified, so it is safe to call concurrently
+    ServiceProvider buildChild(ServiceRepository parent,
+                               ScopeContext context,
+                               Consumer<ServiceProviderBuilder> configurer) {
+        Objects.requireNonNull(configurer);
+        var builder = createChildBuilder();
+        builder.parent = parent;
+        builder.parentContext = context;
+        configurer.accept(builder);
+        return builder.build();
+    }
+
+    // Called on the builder kept by the built provider, see buildChild
+    ServiceProvider rebuild(ScopeContext context, Consumer<ServiceProviderBuilder> configurer) {
+        Objects.requireNonNull(configurer);
+        if (snapshot == null) {
+            throw new UnsupportedOperationException("The provider has been built without rebuild support");
+        }
+        var builder = createChildBuilder();
+        builder.parent = parent;
+        // The new scoped services get the slots after the existing ones
+        builder.parentContext = context;
+        builder.base = snapshot;
+        configurer.accept(builder);
+        return builder.build();
+    }
+
+    /**
+     * Returns the types registered in this builder.
+     *
+     * @return the set of registered types
+     */
+    protected Set<Type> getTypes() {
+        var ret = new HashSet<Type>(strong.keySet());
+        ret.addAll(any.keySet());
+        ret.addAll(multi.keySet());
+        return ret;
+    }
+
+    /**
+     * Passes the registrations of this builder to the specified one, which is kept for the incremental rebuild.
+     *
+     * @param target the builder holding the registrations of the built provider
+     */
+    protected void keep(CheckedProviderBuilder target) {
+        target.strong = strong;
+        target.any = any;
+        target.multi = multi;
+    }
+
+    /**
+     * Adds the registrations of the specified builder that are not overridden by the registrations of this builder.
+     * The elements of the multi-bindings are appended to the elements of the merged ones.
+     *
+     * @param base the builder holding the registrations of the rebuilt provider
+     */
+    protected void merge(CheckedProviderBuilder base) {
+        base.strong.forEach((type, supplier) -> {
+            if (!canResolve(type)) {
+                strong.put(type, supplier);
+            }
+        });
+        base.any.forEach((type, entry) -> {
+            if (!canResolve(type)) {
+                any.put(type, entry);
+            }
+        });
+        base.multi.forEach((type, binding) -> {
+            var added = multi.get(type);
+            var merged = new Multi(binding.set);
+            merged.elements.addAll(binding.elements);
+            if (added != null) {
+                merged.elements.addAll(added.elements);
+            }
+            multi.put(type, merged);
+        });
+    }
+
+    private ServiceProvider makeProvider(ServiceRepository repository,
+                                         ScopeContext context,
+                                         Map<Class<?>, ClassScheme> schemes) {
+        var template = createChildBuilder();
+        template.parent = parent;
+        if (rebuildable) {
+            var registrations = newBuilder(schemeFactory, stubFactory, checks);
+            keep(registrations);
+            template.snapshot = new Snapshot(registrations, schemes, repository);
+        }
+        if (parent != null) {
+            // Only the own entries are frozen, the rest is looked up in the parent
+            var own = frozen ? new FrozenServiceRepository(repository) : repository;
+            return new ServiceProviderImpl(new ChildServiceRepository(own, parent), context, template);
+        }
+        if (frozen) {
+            return new FrozenServiceProvider(new FrozenServiceRepository(repository), context, template);
+        }
+        return new ServiceProviderImpl(repository, context, template);
+    }
+
     protected Graph<Type> makeGraph(Map<Class<?>, ClassScheme> schemes) {
         var ret = new HashGraph<Type>();
         for (var entry : any.entrySet()) {
@@ -65,19 +302,73 @@ public class CheckedProviderBuilder extends AbstractProviderBuilder {
                 ret.addEdge(type, e);
             });
         }
+        for (var entry : multi.entrySet()) {
+            var type = entry.getKey();
+            if (canResolve(type)) {
+                continue;
+            }
+            entry.getValue().elements.forEach(e -> ret.addEdge(type, e));
+        }
         return ret;
     }
 
-    protected Map<Class<?>, ClassScheme> makeSchemes() {
+    private static void join(CompletableFuture<?> future) {
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            var cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    private Map<Class<?>, ClassScheme> makeSchemes(Executor executor, Collection<Class<?>> classes) {
+        var implementations = classes.toArray(new Class<?>[0]);
+        var schemes = new ClassScheme[implementations.length];
+        var futures = new ArrayList<CompletableFuture<?>>();
+        for (var i = 0; i < implementations.length; i += SCHEME_CHUNK) {
+            var from = i;
+            var to = Math.min(i + SCHEME_CHUNK, implementations.length);
+            futures.add(CompletableFuture.runAsync(() -> {
+                for (var j = from; j < to; ++j) {
+                    schemes[j] = schemeFactory.create(implementations[j]);
+                }
+            }, executor));
+        }
+        // Wait in order, so the first error by registration order is reported
+        futures.forEach(CheckedProviderBuilder::join);
         var ret = new HashMap<Class<?>, ClassScheme>();
-        for (var entry : any.values()) {
-            var type = entry.implementation;
+        for (var i = 0; i < implementations.length; ++i) {
+            ret.put(implementations[i], schemes[i]);
+        }
+        return ret;
+    }
+
+    private Map<Class<?>, ClassScheme> makeSchemes(Collection<Class<?>> classes) {
+        if (schemeExecutor != null) {
+            return makeSchemes(schemeExecutor, classes);
+        }
+        var ret = new HashMap<Class<?>, ClassScheme>();
+        for (var type : classes) {
             var scheme = schemeFactory.create(type);
             ret.put(type, scheme);
         }
         return ret;
     }
 
+    protected Map<Class<?>, ClassScheme> makeSchemes() {
+        var classes = new LinkedHashSet<Class<?>>();
+        for (var entry : any.values()) {
+            classes.add(entry.implementation);
+        }
+        return makeSchemes(classes);
+    }
+
     @SuppressWarnings("unchecked")
     protected void buildTypes(Map<Class<?>, ClassScheme> schemes, LazyProvider provider) {
         for (var entry : any.entrySet()) {
@@ -85,17 +376,71 @@ public class CheckedProviderBuilder extends AbstractProviderBuilder {
             var value = entry.getValue();
             var scheme = schemes.get(value.implementation);
             var wrapper = value.wrapper;
-            provider.add(type, () -> (Function0<Object>) wrapper.invoke(stubFactory.create(scheme, provider)));
+            provider.add(
+                    type,
+                    () -> (Function0<Object>) wrapper.invoke(stubFactory.create(scheme, provider)),
+                    scheme,
+                    value.lifetime
+            );
+        }
+        for (var entry : multi.entrySet()) {
+            var type = entry.getKey();
+            // The explicitly registered collection takes precedence
+            if (canResolve(type)) {
+                continue;
+            }
+            var value = entry.getValue();
+            provider.add(type, () -> CollectionFunction0.of(provider, value));
         }
     }
 
+    protected void buildTypes(OnDemandProvider provider, ServiceRepository repository) {
+        for (var entry : any.entrySet()) {
+            var type = entry.getKey();
+            // Types already present in the repository are not built, as in the eager build
+            if (repository.contains(type)) {
+                continue;
+            }
+            repository.add(type, provider.add(type, entry.getValue()));
+        }
+        for (var entry : multi.entrySet()) {
+            var type = entry.getKey();
+            if (repository.contains(type) || canResolve(type)) {
+                continue;
+            }
+            repository.add(type, provider.add(type, entry.getValue()));
+        }
+    }
+
+    private ScopeContext makeScopes() {
+        var scoped = new ArrayList<Entry>();
+        for (var entry : any.values()) {
+            // The scoped services inherited by the incremental rebuild already have their slots
+            if (entry.lifetime == Lifetime.SCOPED && entry.wrapper == null) {
+                scoped.add(entry);
+            }
+        }
+        var ret = parentContext == null
+                ? new ScopeContext(scoped.size())
+                : new ScopeContext(parentContext, scoped.size());
+        // Assign each scoped service its own slot in the scope array
+        for (var i = 0; i < scoped.size(); ++i) {
+            var slot = ret.offset + i;
+            scoped.get(i).wrapper = stub -> new ScopedFunction0<>(ret, slot, stub);
+        }
+        return ret;
+    }
+
     private boolean checkEnabled(int check) {
         return (checks & check) != 0;
     }
 
     protected void checkCycles(Map<Class<?>, ClassScheme> schemes) {
         // Build dependency graph
-        var graph = makeGraph(schemes);
+        checkCycles(makeGraph(schemes));
+    }
+
+    protected void checkCycles(Graph<Type> graph) {
         // Find for strongly connected components
         var components = GraphUtil.findSCC(graph);
         for (var component : components) {
@@ -105,28 +450,271 @@ public class CheckedProviderBuilder extends AbstractProviderBuilder {
         }
     }
 
+    private boolean isResolvable(Type type, ServiceRepository repository) {
+        if (repository.contains(type) || canResolve(type) || multi.containsKey(type)) {
+            return true;
+        }
+        if (parent != null && parent.contains(type)) {
+            return true;
+        }
+        // Function0<T> is resolved as the deferred supplier of T
+        var supplied = DeferredFunction0.getSupplied(type);
+        return supplied != null && isResolvable(supplied, repository);
+    }
+
     protected void checkMissingTypes(Map<Class<?>, ClassScheme> schemes, ServiceRepository repository) {
         for (var scheme : schemes.values()) {
             var types = scheme.getTypes();
             for (var type : types) {
-                if (repository.contains(type)) {
-                    continue;
-                }
-                if (canResolve(type)) {
+                if (isResolvable(type, repository)) {
                     continue;
                 }
                 throw new TypeNotFoundException(type);
             }
         }
+        for (var entry : multi.entrySet()) {
+            if (canResolve(entry.getKey())) {
+                continue;
+            }
+            for (var element : entry.getValue().elements) {
+                if (!isResolvable(element, repository)) {
+                    throw new TypeNotFoundException(element);
+                }
+            }
+        }
+    }
+
+    protected void checkLifetimes(Map<Class<?>, ClassScheme> schemes, Collection<Type> types) {
+        // The explicitly registered collections are not multi-bindings
+        var bindings = new HashMap<>(multi);
+        bindings.keySet().removeIf(this::canResolve);
+        var checker = new LifetimeChecker(any, bindings, entry -> schemes.get(entry.implementation));
+        for (var type : types) {
+            checker.check(type);
+        }
+    }
+
+    private static int findLevel(Graph<Type> graph, Type type, Map<Type, Integer> levels, Set<Type> path) {
+        var ret = levels.get(type);
+        if (ret != null) {
+            return ret;
+        }
+        if (!path.add(type)) {
+            throw new CycleFoundException(List.copyOf(path));
+        }
+        ret = 0;
+        var adjacents = graph.getAdjacentNodes(type);
+        if (adjacents != null) {
+            for (var adjacent : adjacents) {
+                ret = Math.max(ret, findLevel(graph, adjacent, levels, path) + 1);
+            }
+        }
+        path.remove(type);
+        levels.put(type, ret);
+        return ret;
+    }
+
+    protected List<List<Type>> makeLevels(Graph<Type> graph, Collection<Type> types) {
+        var levels = new HashMap<Type, Integer>();
+        var ret = new ArrayList<List<Type>>();
+        for (var type : types) {
+            // The level is the length of the longest dependency chain of the type
+            var level = findLevel(graph, type, levels, new LinkedHashSet<>());
+            while (ret.size() <= level) {
+                ret.add(new ArrayList<>());
+            }
+            ret.get(level).add(type);
+        }
+        ret.removeIf(List::isEmpty);
+        return ret;
+    }
+
+    protected void initSingletons(Graph<Type> graph, ServiceRepository repository) {
+        initSingletons(graph, repository, any.keySet());
+    }
+
+    protected void initSingletons(Graph<Type> graph, ServiceRepository repository, Collection<Type> types) {
+        var singletons = new ArrayList<Type>();
+        for (var type : types) {
+            var entry = any.get(type);
+            if (entry != null && entry.lifetime == Lifetime.SINGLETON) {
+                singletons.add(type);
+            }
+        }
+        var times = new LinkedHashMap<Type, Long>();
+        for (var level : makeLevels(graph, singletons)) {
+            var futures = new CompletableFuture<?>[level.size()];
+            var spent = new long[level.size()];
+            for (var i = 0; i < futures.length; ++i) {
+                var index = i;
+                var supplier = repository.get(level.get(i));
+                futures[i] = CompletableFuture.runAsync(() -> {
+                    var start = System.nanoTime();
+                    try {
+                        supplier.invoke();
+                    } catch (Throwable e) {
+                        throw new CompletionException(e);
+                    }
+                    spent[index] = System.nanoTime() - start;
+                }, eagerExecutor);
+            }
+            // All singletons of the level must be ready before the next level starts
+            join(CompletableFuture.allOf(futures));
+            for (var i = 0; i < spent.length; ++i) {
+                times.put(level.get(i), spent[i]);
+            }
+        }
+        if (eagerReporter != null) {
+            times.forEach(eagerReporter);
+        }
+    }
+
+    protected ServiceProvider lazyBuild() {
+        if (eagerExecutor != null) {
+            throw new IllegalStateException("The lazy build cannot be combined with eager initialization");
+        }
+        var repository = Objects.requireNonNullElse(this.repository, new RepositoryImpl());
+        // Prepare scopes
+        var context = makeScopes();
+        // Add placeholders, which will build the types on the first resolution
+        var view = parent == null ? repository : new ChildServiceRepository(repository, parent);
+        var provider = new OnDemandProvider(view, schemeFactory, stubFactory, checks);
+        buildTypes(provider, repository);
+        // Add strong types
+        strong.forEach(repository::add);
+        return makeProvider(repository, context, Map.of());
+    }
+
+    private Set<Type> findDependents(Graph<Type> graph, Map<Class<?>, ClassScheme> schemes, Set<Type> types) {
+        var reversed = new HashMap<Type, List<Type>>();
+        graph.forEach((from, to) -> reversed.computeIfAbsent(to, key -> new ArrayList<>()).add(from));
+        // Function0<T> dependencies have no edges in the graph, but their suppliers are bound to the built provider
+        for (var entry : any.entrySet()) {
+            var type = entry.getKey();
+            for (var dependency : schemes.get(entry.getValue().implementation).getTypes()) {
+                var supplied = DeferredFunction0.getSupplied(dependency);
+                while (supplied != null) {
+                    reversed.computeIfAbsent(supplied, key -> new ArrayList<>()).add(type);
+                    supplied = DeferredFunction0.getSupplied(supplied);
+                }
+            }
+        }
+        var ret = new HashSet<>(types);
+        var stack = new ArrayDeque<>(types);
+        while (!stack.isEmpty()) {
+            var dependents = reversed.get(stack.pop());
+            if (dependents == null) {
+                continue;
+            }
+            for (var dependent : dependents) {
+                if (ret.add(dependent)) {
+                    stack.push(dependent);
+                }
+            }
+        }
+        return ret;
+    }
+
+    private static Graph<Type> findReachable(Graph<Type> graph, Set<Type> types) {
+        var ret = new HashGraph<Type>();
+        var visited = new HashSet<>(types);
+        var stack = new ArrayDeque<>(types);
+        while (!stack.isEmpty()) {
+            var type = stack.pop();
+            var adjacents = graph.getAdjacentNodes(type);
+            if (adjacents == null) {
+                continue;
+            }
+            for (var adjacent : adjacents) {
+                ret.addEdge(type, adjacent);
+                if (visited.add(adjacent)) {
+                    stack.push(adjacent);
+                }
+            }
+        }
+        return ret;
+    }
+
+    private ServiceProvider incrementalBuild(Snapshot base) {
+        var changed = getTypes();
+        merge(base.registrations);
+        if (lazy) {
+            // The dependencies of the materialized placeholders are unknown, so everything is registered again,
+            // and the singletons are created anew, see ServiceProvider.rebuild
+            return lazyBuild();
+        }
+        // Build class schemes for the new implementations only
+        var schemes = new HashMap<>(base.schemes);
+        var added = new LinkedHashSet<Class<?>>();
+        for (var entry : any.values()) {
+            var implementation = entry.implementation;
+            if (!schemes.containsKey(implementation)) {
+                added.add(implementation);
+            }
+        }
+        schemes.putAll(makeSchemes(added));
+        var graph = makeGraph(schemes);
+        // Any new cycle passes through a changed type, so only the reachable part of the graph is checked
+        if (checkEnabled(VALIDATE_CYCLES)) {
+            checkCycles(findReachable(graph, changed));
+        }
+        // The changed types and all types depending on them must be built again
+        var affected = findDependents(graph, schemes, changed);
+        var repository = Objects.requireNonNullElse(this.repository, new RepositoryImpl());
+        // The other types depend on the unaffected types only, so their instantiators are reused
+        base.repository.forEach((type, supplier) -> {
+            if (!affected.contains(type)) {
+                repository.add(type, supplier);
+            }
+        });
+        if (checkEnabled(VALIDATE_MISSING_TYPES)) {
+            var checked = new HashMap<Class<?>, ClassScheme>();
+            for (var type : affected) {
+                var entry = any.get(type);
+                if (entry != null) {
+                    checked.put(entry.implementation, schemes.get(entry.implementation));
+                }
+            }
+            checkMissingTypes(checked, repository);
+        }
+        if (checkEnabled(VALIDATE_LIFETIMES)) {
+            checkLifetimes(schemes, affected);
+        }
+        var context = makeScopes();
+        // The reused types are already in the repository, so their tasks are skipped
+        var provider = new LazyProvider(repository, parent);
+        buildTypes(schemes, provider);
+        strong.forEach((type, supplier) -> {
+            if (affected.contains(type)) {
+                repository.add(type, supplier);
+            }
+        });
+        provider.commit();
+        // The reused singletons have already been initialized by the rebuilt provider
+        if (eagerExecutor != null) {
+            initSingletons(graph, repository, affected);
+        }
+        return makeProvider(repository, context, schemes);
     }
 
     @Override
     protected ServiceProvider checkedBuild() {
+        if (base != null) {
+            return incrementalBuild(base);
+        }
+        if (lazy) {
+            return lazyBuild();
+        }
         // Build class schemes
         var schemes = makeSchemes();
+        // Build dependency graph, if it is required
+        var graph = (Graph<Type>) null;
+        if (checkEnabled(VALIDATE_CYCLES) || eagerExecutor != null) {
+            graph = makeGraph(schemes);
+        }
         // Validate cyclic dependencies
         if (checkEnabled(VALIDATE_CYCLES)) {
-            checkCycles(schemes);
+            checkCycles(graph);
         }
         // Build repository
         var repository = Objects.requireNonNullElse(this.repository, new RepositoryImpl());
@@ -134,13 +722,37 @@ public class CheckedProviderBuilder extends AbstractProviderBuilder {
         if (checkEnabled(VALIDATE_MISSING_TYPES)) {
             checkMissingTypes(schemes, repository);
         }
+        // Validate scoped dependencies of longer living services
+        if (checkEnabled(VALIDATE_LIFETIMES)) {
+            checkLifetimes(schemes, any.keySet());
+        }
+        // Prepare scopes
+        var context = makeScopes();
         // Prepare weak types
-        var provider = new LazyProvider(repository);
+        var provider = new LazyProvider(repository, parent);
         buildTypes(schemes, provider);
         // Add strong types
         strong.forEach(repository::add);
         // Fire all delayed stub creations
         provider.commit();
-        return new ServiceProviderImpl(repository);
+        // Instantiate singletons in advance
+        if (eagerExecutor != null) {
+            initSingletons(graph, repository);
+        }
+        return makeProvider(repository, context, schemes);
+    }
+
+    private static final class Snapshot {
+        final CheckedProviderBuilder registrations;
+        final Map<Class<?>, ClassScheme> schemes;
+        final ServiceRepository repository;
+
+        private Snapshot(CheckedProviderBuilder registrations,
+                         Map<Class<?>, ClassScheme> schemes,
+                         ServiceRepository repository) {
+            this.registrations = registrations;
+            this.schemes = schemes;
+            this.repository = repository;
+        }
     }
 }
@@ -0,0 +1,82 @@
+package io.github.amayaframework.di;
+
+import com.github.romanqed.jfunc.Function0;
+
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+final class ChildServiceRepository implements ServiceRepository {
+    private final ServiceRepository body;
+    private final ServiceRepository parent;
+
+    ChildServiceRepository(ServiceRepository body, ServiceRepository parent) {
+        this.body = body;
+        this.parent = parent;
+    }
+
+    @Override
+    public Function0<Object> get(Type type) {
+        var ret = body.get(type);
+        if (ret != null) {
+            return ret;
+        }
+        // The entries of the parent are not copied, so a miss costs one more lookup
+        return parent.get(type);
+    }
+
+    @Override
+    public boolean contains(Type type) {
+        return body.contains(type) || parent.contains(type);
+    }
+
+    @Override
+    public void add(Type type, Function0<Object> supplier) {
+        body.add(type, supplier);
+    }
+
+    @Override
+    public boolean remove(Type type) {
+        // The parent is shared with other children, so it is never modified
+        return body.remove(type);
+    }
+
+    @Override
+    public void clear() {
+        body.clear();
+    }
+
+    private Stream<Type> stream() {
+        var inherited = StreamSupport.stream(parent.spliterator(), false).filter(type -> !body.contains(type));
+        return Stream.concat(StreamSupport.stream(body.spliterator(), false), inherited);
+    }
+
+    @Override
+    public void forEach(Consumer<? super Type> action) {
+        stream().forEach(action);
+    }
+
+    @Override
+    public Spliterator<Type> spliterator() {
+        return stream().spliterator();
+    }
+
+    @Override
+    public void forEach(BiConsumer<Type, Function0<Object>> action) {
+        body.forEach(action);
+        parent.forEach((type, supplier) -> {
+            if (!body.contains(type)) {
+                action.accept(type, supplier);
+            }
+        });
+    }
+
+    @Override
+    public Iterator<Type> iterator() {
+        return stream().iterator();
+    }
+}
@@ -0,0 +1,50 @@
+package io.github.amayaframework.di;
+
+import com.github.romanqed.jfunc.Function0;
+import io.github.amayaframework.di.stub.TypeProvider;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+final class CollectionFunction0 implements Function0<Object> {
+    private final Function0<Object>[] suppliers;
+    private final boolean set;
+
+    private CollectionFunction0(Function0<Object>[] suppliers, boolean set) {
+        this.suppliers = suppliers;
+        this.set = set;
+    }
+
+    @SuppressWarnings("unchecked")
+    static Function0<Object> of(TypeProvider provider, AbstractProviderBuilder.Multi multi) {
+        var suppliers = (Function0<Object>[]) new Function0[multi.elements.size()];
+        var index = 0;
+        for (var element : multi.elements) {
+            var supplier = provider.apply(element);
+            if (supplier == null) {
+                throw new TypeNotFoundException(element);
+            }
+            suppliers[index++] = supplier;
+        }
+        return new CollectionFunction0(suppliers, multi.set);
+    }
+
+    @Override
+    public Object invoke() throws Throwable {
+        var values = new Object[suppliers.length];
+        for (var i = 0; i < values.length; ++i) {
+            values[i] = suppliers[i].invoke();
+        }
+        if (!set) {
+            // The array is exactly sized and not shared, so it can be wrapped without copying
+            return Collections.unmodifiableList(Arrays.asList(values));
+        }
+        try {
+            return Set.of(values);
+        } catch (IllegalArgumentException e) {
+            // Different element types have been resolved to equal instances
+            return Set.copyOf(Arrays.asList(values));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package io.github.amayaframework.di;
+
+import com.github.romanqed.jfunc.Function0;
+import io.github.amayaframework.di.stub.TypeProvider;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
+final class DeferredFunction0 implements Function0<Object> {
+    private final TypeProvider provider;
+    private final Type type;
+    private volatile Function0<Object> body;
+
+    private DeferredFunction0(TypeProvider provider, Type type) {
+        this.provider = provider;
+        this.type = type;
+    }
+
+    /**
+     * Returns the type supplied by the {@link Function0} dependency.
+     *
+     * @param type the dependency type
+     * @return the type argument, if the dependency is a {@link Function0}, null otherwise
+     */
+    static Type getSupplied(Type type) {
+        if (!(type instanceof ParameterizedType)) {
+            return null;
+        }
+        var parameterized = (ParameterizedType) type;
+        if (parameterized.getRawType() != Function0.class) {
+            return null;
+        }
+        return parameterized.getActualTypeArguments()[0];
+    }
+
+    /**
+     * Creates the instantiator of the {@link Function0} dependency, which always returns the same
+     * deferred supplier of the type argument. The supplier resolves its type on the first call only,
+     * so it does not add an edge to the dependency graph.
+     *
+     * @param provider the provider used to resolve the supplied type
+     * @param type     the dependency type
+     * @return the instantiator, or null if the dependency is not a {@link Function0}
+     */
+    static Function0<Object> of(TypeProvider provider, Type type) {
+        var supplied = getSupplied(type);
+        if (supplied == null) {
+            return null;
+        }
+        var ret = new DeferredFunction0(provider, supplied);
+        return () -> ret;
+    }
+
+    @Override
+    public Object invoke() throws Throwable {
+        var body = this.body;
+        if (body == null) {
+            body = provider.apply(type);
+            if (body == null) {
+                throw new TypeNotFoundException(type);
+            }
+            this.body = body;
+        }
+        return body.invoke();
+    }
+}
@@ -0,0 +1,78 @@
+package io.github.amayaframework.di;
+
+import com.github.romanqed.jfunc.Exceptions;
+import com.github.romanqed.jfunc.Function0;
+
+import java.lang.reflect.Type;
+import java.util.function.Consumer;
+
+final class FrozenServiceProvider implements ServiceProvider {
+    private final FrozenServiceRepository repository;
+    private final ClassValue<Function0<Object>> classes;
+    private final ScopeContext context;
+    private final CheckedProviderBuilder template;
+
+    FrozenServiceProvider(FrozenServiceRepository repository, ScopeContext context, CheckedProviderBuilder template) {
+        this.repository = repository;
+        this.context = context;
+        this.template = template;
+        // Since the repository cannot be changed, the found instantiators can be cached forever
+        this.classes = new ClassValue<>() {
+            @Override
+            protected Function0<Object> computeValue(Class<?> type) {
+                return repository.get(type);
+            }
+        };
+    }
+
+    @Override
+    public ServiceRepository getRepository() {
+        return repository;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Type type) {
+        var supplier = type instanceof Class ? classes.get((Class<?>) type) : repository.get(type);
+        if (supplier == null) {
+            return null;
+        }
+        return (T) Exceptions.suppress(supplier);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Class<T> type) {
+        var supplier = classes.get(type);
+        if (supplier == null) {
+            return null;
+        }
+        return (T) Exceptions.suppress(supplier);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Function0<T> handle(Type type) {
+        var supplier = repository.get(type);
+        if (supplier == null) {
+            throw new TypeNotFoundException(type);
+        }
+        // The frozen repository cannot be changed, so the instantiator itself is the handle
+        return (Function0<T>) supplier;
+    }
+
+    @Override
+    public ServiceScope createScope() {
+        return new ServiceScope(this, context);
+    }
+
+    @Override
+    public ServiceProvider createChild(Consumer<ServiceProviderBuilder> configurer) {
+        return template.buildChild(repository, context, configurer);
+    }
+
+    @Override
+    public ServiceProvider rebuild(Consumer<ServiceProviderBuilder> configurer) {
+        return template.rebuild(context, configurer);
+    }
+}
@@ -0,0 +1,216 @@
+package io.github.amayaframework.di;
+
+import com.github.romanqed.jfunc.Function0;
+
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * An immutable {@link ServiceRepository} implementation that assigns each type a dense integer slot.
+ * Instantiators are stored in a flat array, and the type-to-slot index is an open addressing table,
+ * built once on construction. When building the table, several hash multipliers and table sizes are tried,
+ * and the first layout without collisions is used, so in most cases any lookup takes exactly one probe.
+ * <br>
+ * All modifying methods throw {@link UnsupportedOperationException}.
+ */
+public final class FrozenServiceRepository implements ServiceRepository {
+    private static final int[] SEEDS = {
+            0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F, 0x165667B1, 0xD3A2646C, 0xFD7046C5, 0xB55A4F09
+    };
+    private static final int MAX_SCALE = 8;
+
+    private final Type[] types;
+    private final Function0<Object>[] suppliers;
+    private final int[] table;
+    private final int seed;
+    private final int shift;
+    private final int mask;
+
+    /**
+     * Constructs {@link FrozenServiceRepository} instance, containing a snapshot of the specified repository.
+     * Further changes of the specified repository will not affect the created one.
+     *
+     * @param repository the specified repository, must be non-null
+     */
+    public FrozenServiceRepository(ServiceRepository repository) {
+        Objects.requireNonNull(repository);
+        var types = new ArrayList<Type>();
+        var suppliers = new ArrayList<Function0<Object>>();
+        repository.forEach((BiConsumer<Type, Function0<Object>>) (type, supplier) -> {
+            types.add(type);
+            suppliers.add(supplier);
+        });
+        this.types = types.toArray(new Type[0]);
+        this.suppliers = toArray(suppliers);
+        // Find the best table layout
+        var hashes = new int[this.types.length];
+        for (var i = 0; i < hashes.length; ++i) {
+            hashes[i] = this.types[i].hashCode();
+        }
+        var bits = bitsFor(hashes.length);
+        var best = (Layout) null;
+        for (var scale = 0; (1 << scale) <= MAX_SCALE; ++scale) {
+            for (var seed : SEEDS) {
+                var layout = Layout.of(hashes, seed, bits + scale);
+                if (best == null || layout.probes < best.probes) {
+                    best = layout;
+                }
+                if (best.probes == 0) {
+                    break;
+                }
+            }
+            if (best.probes == 0) {
+                break;
+            }
+        }
+        this.table = best.table;
+        this.seed = best.seed;
+        this.shift = 32 - best.bits;
+        this.mask = best.table.length - 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Function0<Object>[] toArray(List<Function0<Object>> list) {
+        return list.toArray(new Function0[0]);
+    }
+
+    private static int bitsFor(int size) {
+        // The table is at least twice as large as the number of types
+        var ret = 1;
+        while ((1 << ret) < size * 2) {
+            ++ret;
+        }
+        return ret;
+    }
+
+    private static int index(int hash, int seed, int shift) {
+        return (hash * seed) >>> shift;
+    }
+
+    /**
+     * Returns the slot assigned to the specified type.
+     *
+     * @param type the specified type, must be non-null
+     * @return slot number, or -1 if there is no such type
+     */
+    public int indexOf(Type type) {
+        var hash = type.hashCode();
+        var i = index(hash, seed, shift);
+        while (true) {
+            var slot = table[i] - 1;
+            if (slot < 0) {
+                return -1;
+            }
+            var found = types[slot];
+            if (found == type || found.equals(type)) {
+                return slot;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * Gets the instantiator stored in the specified slot.
+     *
+     * @param index the slot number, obtained by {@link FrozenServiceRepository#indexOf(Type)}
+     * @return {@link Function0} instance
+     * @throws IndexOutOfBoundsException if there is no such slot
+     */
+    public Function0<Object> get(int index) {
+        return suppliers[index];
+    }
+
+    /**
+     * Returns the number of types contained in this repository.
+     *
+     * @return the number of types
+     */
+    public int size() {
+        return types.length;
+    }
+
+    @Override
+    public Function0<Object> get(Type type) {
+        var slot = indexOf(type);
+        if (slot < 0) {
+            return null;
+        }
+        return suppliers[slot];
+    }
+
+    @Override
+    public boolean contains(Type type) {
+        return indexOf(type) >= 0;
+    }
+
+    @Override
+    public void add(Type type, Function0<Object> supplier) {
+        throw new UnsupportedOperationException("The frozen repository cannot be modified");
+    }
+
+    @Override
+    public boolean remove(Type type) {
+        throw new UnsupportedOperationException("The frozen repository cannot be modified");
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("The frozen repository cannot be modified");
+    }
+
+    @Override
+    public void forEach(Consumer<? super Type> action) {
+        for (var type : types) {
+            action.accept(type);
+        }
+    }
+
+    @Override
+    public Spliterator<Type> spliterator() {
+        return Spliterators.spliterator(types, Spliterator.IMMUTABLE | Spliterator.DISTINCT | Spliterator.NONNULL);
+    }
+
+    @Override
+    public void forEach(BiConsumer<Type, Function0<Object>> action) {
+        for (var i = 0; i < types.length; ++i) {
+            action.accept(types[i], suppliers[i]);
+        }
+    }
+
+    @Override
+    public Iterator<Type> iterator() {
+        return Collections.unmodifiableList(Arrays.asList(types)).iterator();
+    }
+
+    private static final class Layout {
+        final int[] table;
+        final int seed;
+        final int bits;
+        final int probes;
+
+        private Layout(int[] table, int seed, int bits, int probes) {
+            this.table = table;
+            this.seed = seed;
+            this.bits = bits;
+            this.probes = probes;
+        }
+
+        static Layout of(int[] hashes, int seed, int bits) {
+            var table = new int[1 << bits];
+            var mask = table.length - 1;
+            var shift = 32 - bits;
+            var probes = 0;
+            for (var slot = 0; slot < hashes.length; ++slot) {
+                var i = index(hashes[slot], seed, shift);
+                while (table[i] != 0) {
+                    i = (i + 1) & mask;
+                    ++probes;
+                }
+                table[i] = slot + 1;
+            }
+            return new Layout(table, seed, bits, probes);
+        }
+    }
+}
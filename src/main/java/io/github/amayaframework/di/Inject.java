@@ -5,9 +5,13 @@ import java.lang.annotation.*;
 /**
  * An annotation that is used as a default marker when building a
  * {@link io.github.amayaframework.di.scheme.ClassScheme}.
- * It can only be applied to constructors, fields, and methods.
+ * It can only be applied to classes, constructors, fields, and methods.
  * It is inherited.
  * <br>
+ * When applied to a class, it has no effect at runtime,
+ * but marks the class for the compile-time scheme generation (see amaya-di-apt),
+ * which is useful for classes that do not contain any annotated members.
+ * <br>
  * Simple usage example:
  * <pre>
  *     class MyApp {
@@ -28,6 +32,6 @@ import java.lang.annotation.*;
 @Inherited
 @Documented
 @Retention(RetentionPolicy.RUNTIME)
-@Target({ElementType.CONSTRUCTOR, ElementType.FIELD, ElementType.METHOD})
+@Target({ElementType.TYPE, ElementType.CONSTRUCTOR, ElementType.FIELD, ElementType.METHOD})
 public @interface Inject {
 }
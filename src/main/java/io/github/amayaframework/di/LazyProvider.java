@@ -2,7 +2,9 @@ package io.github.amayaframework.di;
 
 import com.github.romanqed.jfunc.Exceptions;
 import com.github.romanqed.jfunc.Function0;
-import io.github.amayaframework.di.stub.TypeProvider;
+import io.github.amayaframework.di.scheme.ClassScheme;
+import io.github.amayaframework.di.stub.Lifetime;
+import io.github.amayaframework.di.stub.SchemeProvider;
 
 import java.lang.reflect.Type;
 import java.util.HashMap;
@@ -10,12 +12,16 @@ import java.util.Map;
 import java.util.Objects;
 
 /**
- * A lazy implementation of the {@link TypeProvider}, which allows you to organize
- * the chain of building type implementations.
+ * A lazy implementation of the {@link io.github.amayaframework.di.stub.TypeProvider},
+ * which allows you to organize the chain of building type implementations.
+ * Also implements {@link SchemeProvider}, so the stub factories can find out how the dependencies are built.
  */
-public class LazyProvider implements TypeProvider {
+public class LazyProvider implements SchemeProvider {
     private final ServiceRepository repository;
+    private final ServiceRepository parent;
     private final Map<Type, Function0<Function0<Object>>> body;
+    private final Map<Type, ClassScheme> schemes;
+    private final Map<Type, Lifetime> lifetimes;
 
     /**
      * Constructs {@link LazyProvider} with the specified repository.
@@ -23,8 +29,22 @@ public class LazyProvider implements TypeProvider {
      * @param repository the specified repository
      */
     public LazyProvider(ServiceRepository repository) {
+        this(repository, null);
+    }
+
+    /**
+     * Constructs {@link LazyProvider} with the specified repository and the repository of the parent provider.
+     * The types found neither in the repository nor among the deferred tasks are resolved by the parent repository.
+     *
+     * @param repository the specified repository
+     * @param parent     the repository of the parent provider, may be null
+     */
+    public LazyProvider(ServiceRepository repository, ServiceRepository parent) {
         this.repository = Objects.requireNonNull(repository);
+        this.parent = parent;
         this.body = new HashMap<>();
+        this.schemes = new HashMap<>();
+        this.lifetimes = new HashMap<>();
     }
 
     /**
@@ -35,6 +55,27 @@ public class LazyProvider implements TypeProvider {
      */
     public void add(Type type, Function0<Function0<Object>> task) {
         body.put(type, task);
+        schemes.remove(type);
+        lifetimes.remove(type);
+    }
+
+    /**
+     * Adds the deferred task of creating a type implementation, built by the specified scheme.
+     * If the repository already contains the type, the scheme will not be provided,
+     * since the task will never be executed.
+     *
+     * @param type     the specified type
+     * @param task     the specified task
+     * @param scheme   the scheme of type implementation
+     * @param lifetime the lifetime of type implementation
+     */
+    public void add(Type type, Function0<Function0<Object>> task, ClassScheme scheme, Lifetime lifetime) {
+        add(type, task);
+        if (repository.contains(type)) {
+            return;
+        }
+        schemes.put(type, Objects.requireNonNull(scheme));
+        lifetimes.put(type, Objects.requireNonNull(lifetime));
     }
 
     /**
@@ -54,6 +95,8 @@ public class LazyProvider implements TypeProvider {
      * @return true if the task was removed, false otherwise
      */
     public boolean remove(Type type) {
+        schemes.remove(type);
+        lifetimes.remove(type);
         return body.remove(type) != null;
     }
 
@@ -71,6 +114,18 @@ public class LazyProvider implements TypeProvider {
             repository.add(type, supplier);
         }
         body.clear();
+        schemes.clear();
+        lifetimes.clear();
+    }
+
+    @Override
+    public ClassScheme getScheme(Type type) {
+        return schemes.get(type);
+    }
+
+    @Override
+    public Lifetime getLifetime(Type type) {
+        return lifetimes.get(type);
     }
 
     @Override
@@ -81,7 +136,12 @@ public class LazyProvider implements TypeProvider {
         }
         var provided = body.get(type);
         if (provided == null) {
-            return null;
+            var inherited = parent == null ? null : parent.get(type);
+            if (inherited != null) {
+                return inherited;
+            }
+            // Function0<T> dependencies receive the deferred supplier of T instead of its instance
+            return DeferredFunction0.of(this, type);
         }
         var function = Exceptions.suppress(provided);
         repository.add(type, function);
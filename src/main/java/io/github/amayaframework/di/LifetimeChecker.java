@@ -0,0 +1,89 @@
+package io.github.amayaframework.di;
+
+import io.github.amayaframework.di.scheme.ClassScheme;
+import io.github.amayaframework.di.stub.Lifetime;
+
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Checks that the scoped services do not flow into the services living longer than a scope.
+ * The services created on each call, such as transient ones and multi-bindings, pass the scoped dependencies
+ * through. So do the {@link com.github.romanqed.jfunc.Function0} dependencies: the supplier would resolve
+ * the scoped service in the scope active on the calling thread, not in the one it was injected from.
+ */
+final class LifetimeChecker {
+    private final Map<Type, AbstractProviderBuilder.Entry> entries;
+    private final Map<Type, AbstractProviderBuilder.Multi> multi;
+    private final Function<AbstractProviderBuilder.Entry, ClassScheme> schemes;
+    // The scoped service reachable from the type, empty if there is none
+    private final Map<Type, Optional<Type>> found;
+
+    LifetimeChecker(Map<Type, AbstractProviderBuilder.Entry> entries,
+                    Map<Type, AbstractProviderBuilder.Multi> multi,
+                    Function<AbstractProviderBuilder.Entry, ClassScheme> schemes) {
+        this.entries = entries;
+        this.multi = multi;
+        this.schemes = schemes;
+        this.found = new HashMap<>();
+    }
+
+    private Type findScoped(Type type) {
+        var ret = found.get(type);
+        if (ret != null) {
+            return ret.orElse(null);
+        }
+        // Marked in advance, so the cycles are not followed
+        found.put(type, Optional.empty());
+        var scoped = (Type) null;
+        var entry = entries.get(type);
+        if (entry != null) {
+            var lifetime = entry.lifetime;
+            if (lifetime == Lifetime.SCOPED) {
+                scoped = type;
+            } else if (lifetime == Lifetime.TRANSIENT || lifetime == Lifetime.RESOLUTION) {
+                scoped = findScoped(schemes.apply(entry).getTypes());
+            }
+        } else {
+            var binding = multi.get(type);
+            var supplied = DeferredFunction0.getSupplied(type);
+            if (binding != null) {
+                scoped = findScoped(binding.elements);
+            } else if (supplied != null) {
+                scoped = findScoped(supplied);
+            }
+        }
+        found.put(type, Optional.ofNullable(scoped));
+        return scoped;
+    }
+
+    private Type findScoped(Iterable<Type> types) {
+        for (var type : types) {
+            var ret = findScoped(type);
+            if (ret != null) {
+                return ret;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks the service registered with the specified type.
+     *
+     * @param type the specified type
+     * @throws LifetimeMismatchException if the singleton or custom service depends on a scoped one
+     */
+    void check(Type type) {
+        var entry = entries.get(type);
+        if (entry == null || (entry.lifetime != Lifetime.SINGLETON && entry.lifetime != Lifetime.CUSTOM)) {
+            return;
+        }
+        var scoped = findScoped(schemes.apply(entry).getTypes());
+        if (scoped != null) {
+            throw new LifetimeMismatchException(type, scoped);
+        }
+    }
+}
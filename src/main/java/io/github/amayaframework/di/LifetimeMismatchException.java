@@ -0,0 +1,42 @@
+package io.github.amayaframework.di;
+
+import java.lang.reflect.Type;
+
+/**
+ * Thrown to indicate that a service living longer than a scope depends on a scoped service,
+ * so it would capture the instance of the scope that happened to be active on its creation.
+ */
+public class LifetimeMismatchException extends RuntimeException {
+    private final Type type;
+    private final Type scoped;
+
+    /**
+     * Constructs an {@link LifetimeMismatchException} with the service and its scoped dependency.
+     *
+     * @param type   the service with the longer lifetime
+     * @param scoped the scoped service it depends on
+     */
+    public LifetimeMismatchException(Type type, Type scoped) {
+        super("The service " + type + " outlives the scoped service " + scoped + " it depends on");
+        this.type = type;
+        this.scoped = scoped;
+    }
+
+    /**
+     * Returns the service with the longer lifetime.
+     *
+     * @return the service type
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Returns the scoped service captured by the service.
+     *
+     * @return the scoped service type
+     */
+    public Type getScoped() {
+        return scoped;
+    }
+}
@@ -4,6 +4,7 @@ import com.github.romanqed.jfunc.Function0;
 import com.github.romanqed.jfunc.Function1;
 import io.github.amayaframework.di.scheme.ClassScheme;
 import io.github.amayaframework.di.scheme.SchemeFactory;
+import io.github.amayaframework.di.scheme.TypeInterner;
 import io.github.amayaframework.di.stub.StubFactory;
 import io.github.amayaframework.di.stub.TypeProvider;
 
@@ -11,6 +12,9 @@ import java.lang.reflect.Type;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
 
 /**
  * A {@link ManualProviderBuilder} implementation based on {@link CheckedProviderBuilder}.
@@ -40,6 +44,11 @@ public class ManualCheckedProviderBuilder extends CheckedProviderBuilder impleme
         this(schemeFactory, stubFactory, VALIDATE_ALL);
     }
 
+    @Override
+    protected CheckedProviderBuilder newBuilder(SchemeFactory schemeFactory, StubFactory stubFactory, int checks) {
+        return new ManualCheckedProviderBuilder(schemeFactory, stubFactory, checks);
+    }
+
     @Override
     protected void reset() {
         super.reset();
@@ -51,6 +60,30 @@ public class ManualCheckedProviderBuilder extends CheckedProviderBuilder impleme
         return manual.containsKey(type) || super.canResolve(type);
     }
 
+    @Override
+    protected Set<Type> getTypes() {
+        var ret = super.getTypes();
+        ret.addAll(manual.keySet());
+        return ret;
+    }
+
+    @Override
+    protected void keep(CheckedProviderBuilder target) {
+        super.keep(target);
+        ((ManualCheckedProviderBuilder) target).manual = manual;
+    }
+
+    @Override
+    protected void merge(CheckedProviderBuilder base) {
+        super.merge(base);
+        // The dependencies of manual types are unknown, so they are built again only if replaced
+        ((ManualCheckedProviderBuilder) base).manual.forEach((type, function) -> {
+            if (!canResolve(type)) {
+                manual.put(type, function);
+            }
+        });
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     protected void buildTypes(Map<Class<?>, ClassScheme> schemes, LazyProvider provider) {
@@ -62,6 +95,18 @@ public class ManualCheckedProviderBuilder extends CheckedProviderBuilder impleme
         }
     }
 
+    @Override
+    protected void buildTypes(OnDemandProvider provider, ServiceRepository repository) {
+        super.buildTypes(provider, repository);
+        for (var entry : manual.entrySet()) {
+            var type = entry.getKey();
+            if (repository.contains(type)) {
+                continue;
+            }
+            repository.add(type, provider.add(type, entry.getValue()));
+        }
+    }
+
     @Override
     public ManualProviderBuilder addManual(Type type,
                                            Function1<TypeProvider, Function0<?>> function) {
@@ -69,11 +114,47 @@ public class ManualCheckedProviderBuilder extends CheckedProviderBuilder impleme
         Objects.requireNonNull(function);
         any.remove(type);
         strong.remove(type);
-        manual.put(type, function);
+        manual.put(TypeInterner.intern(type), function);
         return this;
     }
 
     // Override parent methods to provide proper flow api
+    @Override
+    public ManualCheckedProviderBuilder setFrozen(boolean frozen) {
+        super.setFrozen(frozen);
+        return this;
+    }
+
+    @Override
+    public ManualCheckedProviderBuilder setLazy(boolean lazy) {
+        super.setLazy(lazy);
+        return this;
+    }
+
+    @Override
+    public ManualCheckedProviderBuilder setRebuildable(boolean rebuildable) {
+        super.setRebuildable(rebuildable);
+        return this;
+    }
+
+    @Override
+    public ManualCheckedProviderBuilder setSchemeExecutor(Executor executor) {
+        super.setSchemeExecutor(executor);
+        return this;
+    }
+
+    @Override
+    public ManualCheckedProviderBuilder setEagerInit(Executor executor, BiConsumer<Type, Long> reporter) {
+        super.setEagerInit(executor, reporter);
+        return this;
+    }
+
+    @Override
+    public ManualCheckedProviderBuilder setEagerInit(boolean eager) {
+        super.setEagerInit(eager);
+        return this;
+    }
+
     @Override
     public ManualProviderBuilder setRepository(ServiceRepository repository) {
         super.setRepository(repository);
@@ -140,6 +221,44 @@ public class ManualCheckedProviderBuilder extends CheckedProviderBuilder impleme
         return this;
     }
 
+    @Override
+    public ManualProviderBuilder addScoped(Type type, Class<?> implementation) {
+        super.addScoped(type, implementation);
+        manual.remove(type);
+        return this;
+    }
+
+    @Override
+    public <T> ManualProviderBuilder addScoped(Class<T> type, Class<? extends T> implementation) {
+        super.addScoped(type, implementation);
+        return this;
+    }
+
+    @Override
+    public ManualProviderBuilder addScoped(Class<?> type) {
+        super.addScoped(type);
+        return this;
+    }
+
+    @Override
+    public ManualProviderBuilder addResolutionScoped(Type type, Class<?> implementation) {
+        super.addResolutionScoped(type, implementation);
+        manual.remove(type);
+        return this;
+    }
+
+    @Override
+    public <T> ManualProviderBuilder addResolutionScoped(Class<T> type, Class<? extends T> implementation) {
+        super.addResolutionScoped(type, implementation);
+        return this;
+    }
+
+    @Override
+    public ManualProviderBuilder addResolutionScoped(Class<?> type) {
+        super.addResolutionScoped(type);
+        return this;
+    }
+
     @Override
     public ManualProviderBuilder addService(Type type, Function0<?> supplier) {
         super.addService(type, supplier);
@@ -147,6 +266,18 @@ public class ManualCheckedProviderBuilder extends CheckedProviderBuilder impleme
         return this;
     }
 
+    @Override
+    public ManualProviderBuilder addToList(Type type, Type element) {
+        super.addToList(type, element);
+        return this;
+    }
+
+    @Override
+    public ManualProviderBuilder addToSet(Type type, Type element) {
+        super.addToSet(type, element);
+        return this;
+    }
+
     @Override
     public ManualProviderBuilder removeService(Type type) {
         super.removeService(type);
@@ -76,6 +76,46 @@ public interface ManualProviderBuilder extends ServiceProviderBuilder {
     @Override
     ManualProviderBuilder addTransient(Class<?> type);
 
+    @Override
+    default ManualProviderBuilder addScoped(Type type, Class<?> implementation) {
+        throw new UnsupportedOperationException("Scoped services are not supported by this builder");
+    }
+
+    @Override
+    default <T> ManualProviderBuilder addScoped(JType<T> type, Class<? extends T> implementation) {
+        return addScoped(type.getType(), implementation);
+    }
+
+    @Override
+    default <T> ManualProviderBuilder addScoped(Class<T> type, Class<? extends T> implementation) {
+        return addScoped((Type) type, implementation);
+    }
+
+    @Override
+    default ManualProviderBuilder addScoped(Class<?> type) {
+        return addScoped(type, type);
+    }
+
+    @Override
+    default ManualProviderBuilder addResolutionScoped(Type type, Class<?> implementation) {
+        throw new UnsupportedOperationException("Resolution-scoped services are not supported by this builder");
+    }
+
+    @Override
+    default <T> ManualProviderBuilder addResolutionScoped(JType<T> type, Class<? extends T> implementation) {
+        return addResolutionScoped(type.getType(), implementation);
+    }
+
+    @Override
+    default <T> ManualProviderBuilder addResolutionScoped(Class<T> type, Class<? extends T> implementation) {
+        return addResolutionScoped((Type) type, implementation);
+    }
+
+    @Override
+    default ManualProviderBuilder addResolutionScoped(Class<?> type) {
+        return addResolutionScoped(type, type);
+    }
+
     @Override
     ManualProviderBuilder addService(Type type, Function0<?> supplier);
 
@@ -99,6 +139,16 @@ public interface ManualProviderBuilder extends ServiceProviderBuilder {
         return addService(instance.getClass(), () -> instance);
     }
 
+    @Override
+    default ManualProviderBuilder addToList(Type type, Type element) {
+        throw new UnsupportedOperationException("Multi-bindings are not supported by this builder");
+    }
+
+    @Override
+    default ManualProviderBuilder addToSet(Type type, Type element) {
+        throw new UnsupportedOperationException("Multi-bindings are not supported by this builder");
+    }
+
     @Override
     ManualProviderBuilder removeService(Type type);
 }
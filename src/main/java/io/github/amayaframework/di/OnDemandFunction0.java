@@ -0,0 +1,29 @@
+package io.github.amayaframework.di;
+
+import com.github.romanqed.jfunc.Function0;
+
+import java.lang.reflect.Type;
+
+final class OnDemandFunction0 implements Function0<Object> {
+    final OnDemandProvider provider;
+    final Type type;
+    volatile Function0<Object> body;
+
+    OnDemandFunction0(OnDemandProvider provider, Type type) {
+        this.provider = provider;
+        this.type = type;
+    }
+
+    Function0<Object> get() {
+        var ret = body;
+        if (ret != null) {
+            return ret;
+        }
+        return provider.materialize(this);
+    }
+
+    @Override
+    public Object invoke() throws Throwable {
+        return get().invoke();
+    }
+}
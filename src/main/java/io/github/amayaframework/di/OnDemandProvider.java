@@ -0,0 +1,210 @@
+package io.github.amayaframework.di;
+
+import com.github.romanqed.jfunc.Exceptions;
+import com.github.romanqed.jfunc.Function0;
+import com.github.romanqed.jfunc.Function1;
+import io.github.amayaframework.di.scheme.ClassScheme;
+import io.github.amayaframework.di.scheme.SchemeFactory;
+import io.github.amayaframework.di.stub.Lifetime;
+import io.github.amayaframework.di.stub.SchemeProvider;
+import io.github.amayaframework.di.stub.StubFactory;
+import io.github.amayaframework.di.stub.TypeProvider;
+
+import java.lang.reflect.Type;
+import java.util.*;
+
+/**
+ * An on-demand implementation of the {@link io.github.amayaframework.di.stub.TypeProvider},
+ * used by the lazy build of {@link CheckedProviderBuilder}.
+ * Instead of the instantiators, the repository is filled with placeholders, and the class scheme, the checks
+ * and the stub of a type are made only on its first resolution. The checks cover only the subgraph
+ * reachable from the resolved type, so the errors of the services that are never requested are not reported.
+ * <br>
+ * The materialization is performed under the lock of the provider, so each type is built at most once.
+ * The repository itself is not modified, so it may be safely read concurrently.
+ */
+public class OnDemandProvider implements SchemeProvider {
+    private final ServiceRepository repository;
+    private final SchemeFactory schemeFactory;
+    private final StubFactory stubFactory;
+    private final boolean validateCycles;
+    private final boolean validateMissingTypes;
+    private final LifetimeChecker lifetimeChecker;
+    private final Map<Type, AbstractProviderBuilder.Entry> entries;
+    private final Map<Type, Function1<TypeProvider, Function0<?>>> manual;
+    private final Map<Type, AbstractProviderBuilder.Multi> multi;
+    private final Map<Class<?>, ClassScheme> schemes;
+
+    /**
+     * Constructs {@link OnDemandProvider} with the specified repository, factories and check set.
+     *
+     * @param repository    the repository containing the placeholders, must be non-null
+     * @param schemeFactory the specified scheme factory, must be non-null
+     * @param stubFactory   the specified stub factory, must be non-null
+     * @param checks        the set of {@link CheckedProviderBuilder} checks applied on the first resolution
+     */
+    public OnDemandProvider(ServiceRepository repository,
+                            SchemeFactory schemeFactory,
+                            StubFactory stubFactory,
+                            int checks) {
+        this.repository = Objects.requireNonNull(repository);
+        this.schemeFactory = Objects.requireNonNull(schemeFactory);
+        this.stubFactory = Objects.requireNonNull(stubFactory);
+        this.validateCycles = (checks & CheckedProviderBuilder.VALIDATE_CYCLES) != 0;
+        this.validateMissingTypes = (checks & CheckedProviderBuilder.VALIDATE_MISSING_TYPES) != 0;
+        this.entries = new HashMap<>();
+        this.manual = new HashMap<>();
+        this.multi = new HashMap<>();
+        this.schemes = new HashMap<>();
+        this.lifetimeChecker = (checks & CheckedProviderBuilder.VALIDATE_LIFETIMES) != 0
+                ? new LifetimeChecker(entries, multi, this::getScheme)
+                : null;
+    }
+
+    /**
+     * Registers the type built by the class scheme and returns its placeholder.
+     *
+     * @param type  the specified type
+     * @param entry the builder entry of the type
+     * @return the placeholder, which must be added to the repository
+     */
+    Function0<Object> add(Type type, AbstractProviderBuilder.Entry entry) {
+        entries.put(type, entry);
+        return new OnDemandFunction0(this, type);
+    }
+
+    /**
+     * Registers the multi-binding of the collection type and returns its placeholder.
+     *
+     * @param type    the collection type
+     * @param binding the multi-binding of the type
+     * @return the placeholder, which must be added to the repository
+     */
+    Function0<Object> add(Type type, AbstractProviderBuilder.Multi binding) {
+        multi.put(type, binding);
+        return new OnDemandFunction0(this, type);
+    }
+
+    /**
+     * Registers the type built by the specified function and returns its placeholder.
+     * The dependencies of such types are not known, so they are not checked.
+     *
+     * @param type    the specified type
+     * @param builder the function building the type implementation
+     * @return the placeholder, which must be added to the repository
+     */
+    public Function0<Object> add(Type type, Function1<TypeProvider, Function0<?>> builder) {
+        manual.put(type, Objects.requireNonNull(builder));
+        return new OnDemandFunction0(this, type);
+    }
+
+    private ClassScheme getScheme(AbstractProviderBuilder.Entry entry) {
+        return schemes.computeIfAbsent(entry.implementation, schemeFactory::create);
+    }
+
+    private boolean isDeferred(Type type) {
+        // The supplied type is resolved only on the call of the supplier, so it is not traversed
+        var supplied = DeferredFunction0.getSupplied(type);
+        return supplied != null && (repository.contains(supplied) || isDeferred(supplied));
+    }
+
+    private void check(Type type, List<Type> path, Set<Type> checked) {
+        if (checked.contains(type)) {
+            return;
+        }
+        var index = path.indexOf(type);
+        if (index >= 0) {
+            if (validateCycles) {
+                throw new CycleFoundException(List.copyOf(path.subList(index, path.size())));
+            }
+            return;
+        }
+        var entry = entries.get(type);
+        var binding = multi.get(type);
+        if (entry == null && binding == null) {
+            // Manually built type, nothing is known about its dependencies
+            checked.add(type);
+            return;
+        }
+        if (lifetimeChecker != null) {
+            lifetimeChecker.check(type);
+        }
+        path.add(type);
+        var dependencies = entry == null ? binding.elements : getScheme(entry).getTypes();
+        for (var dependency : dependencies) {
+            var found = repository.get(dependency);
+            if (found == null) {
+                if (validateMissingTypes && !isDeferred(dependency)) {
+                    throw new TypeNotFoundException(dependency);
+                }
+                continue;
+            }
+            if (!(found instanceof OnDemandFunction0)) {
+                continue;
+            }
+            var function = (OnDemandFunction0) found;
+            // Already built types have been checked on their own resolution
+            if (function.provider == this && function.body == null) {
+                check(function.type, path, checked);
+            }
+        }
+        path.remove(path.size() - 1);
+        checked.add(type);
+    }
+
+    @SuppressWarnings("unchecked")
+    synchronized Function0<Object> materialize(OnDemandFunction0 function) {
+        var ret = function.body;
+        if (ret != null) {
+            return ret;
+        }
+        var type = function.type;
+        var entry = entries.get(type);
+        var binding = multi.get(type);
+        if (binding != null) {
+            check(type, new ArrayList<>(), new HashSet<>());
+            ret = CollectionFunction0.of(this, binding);
+        } else if (entry == null) {
+            var builder = manual.get(type);
+            ret = (Function0<Object>) Exceptions.suppress(() -> builder.invoke(this));
+        } else {
+            check(type, new ArrayList<>(), new HashSet<>());
+            var scheme = getScheme(entry);
+            var stub = stubFactory.create(scheme, this);
+            ret = (Function0<Object>) Exceptions.suppress(() -> entry.wrapper.invoke(stub));
+        }
+        function.body = ret;
+        return ret;
+    }
+
+    @Override
+    public synchronized ClassScheme getScheme(Type type) {
+        var entry = entries.get(type);
+        if (entry == null) {
+            return null;
+        }
+        return getScheme(entry);
+    }
+
+    @Override
+    public Lifetime getLifetime(Type type) {
+        var entry = entries.get(type);
+        if (entry == null) {
+            return null;
+        }
+        return entry.lifetime;
+    }
+
+    @Override
+    public Function0<Object> apply(Type type) {
+        var ret = repository.get(type);
+        if (ret == null) {
+            return DeferredFunction0.of(this, type);
+        }
+        if (ret instanceof OnDemandFunction0) {
+            // Give the stubs the built instantiator, so they do not go through the placeholder
+            return ((OnDemandFunction0) ret).get();
+        }
+        return ret;
+    }
+}
@@ -1,5 +1,6 @@
 package io.github.amayaframework.di;
 
+import io.github.amayaframework.di.scheme.CachedSchemeFactory;
 import io.github.amayaframework.di.scheme.ReflectionSchemeFactory;
 import io.github.amayaframework.di.scheme.SchemeFactory;
 import io.github.amayaframework.di.stub.StubFactory;
@@ -12,6 +13,7 @@ import java.lang.annotation.Annotation;
  */
 public final class ProviderBuilders {
     public static final SchemeFactory REFLECTION_FACTORY = new ReflectionSchemeFactory(Inject.class);
+    public static final SchemeFactory CACHED_REFLECTION_FACTORY = CachedSchemeFactory.shared(Inject.class);
 
     private ProviderBuilders() {
     }
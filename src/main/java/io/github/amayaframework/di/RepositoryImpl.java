@@ -10,6 +10,9 @@ import java.util.function.Consumer;
 final class RepositoryImpl implements ServiceRepository {
     private final Map<Type, Function0<Object>> body;
     private final Set<Type> keys;
+    // Incremented on each modification, allows handles to detect that the entry they hold may be outdated.
+    // Volatile, so the increment publishes the modification to the handles used on other threads
+    volatile int version;
 
     RepositoryImpl() {
         this.body = new HashMap<>();
@@ -29,16 +32,22 @@ final class RepositoryImpl implements ServiceRepository {
     @Override
     public void add(Type type, Function0<Object> supplier) {
         body.put(type, supplier);
+        ++version;
     }
 
     @Override
     public boolean remove(Type type) {
-        return body.remove(type) != null;
+        if (body.remove(type) == null) {
+            return false;
+        }
+        ++version;
+        return true;
     }
 
     @Override
     public void clear() {
         body.clear();
+        ++version;
     }
 
     @Override
@@ -0,0 +1,25 @@
+package io.github.amayaframework.di;
+
+import com.github.romanqed.jfunc.Function0;
+
+import java.lang.reflect.Type;
+
+final class ResolvingHandle<T> implements Function0<T> {
+    private final ServiceRepository repository;
+    private final Type type;
+
+    ResolvingHandle(ServiceRepository repository, Type type) {
+        this.repository = repository;
+        this.type = type;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T invoke() throws Throwable {
+        var supplier = repository.get(type);
+        if (supplier == null) {
+            throw new TypeNotFoundException(type);
+        }
+        return (T) supplier.invoke();
+    }
+}
@@ -0,0 +1,28 @@
+package io.github.amayaframework.di;
+
+final class ScopeContext {
+    private static final Object[] EMPTY = new Object[0];
+
+    // Stubs are shared and take no arguments, so the active scope of the current thread is passed through here
+    final ThreadLocal<Object[]> current;
+    // The first slot of the own scoped services, the slots before it belong to the parent providers
+    final int offset;
+    final int size;
+
+    ScopeContext(int size) {
+        this.current = new ThreadLocal<>();
+        this.offset = 0;
+        this.size = size;
+    }
+
+    ScopeContext(ScopeContext parent, int size) {
+        // The scope of a child also holds the scoped services of the parent, so they share the active scope
+        this.current = parent.current;
+        this.offset = parent.size;
+        this.size = parent.size + size;
+    }
+
+    Object[] allocate() {
+        return size == 0 ? EMPTY : new Object[size];
+    }
+}
@@ -0,0 +1,31 @@
+package io.github.amayaframework.di;
+
+import com.github.romanqed.jfunc.Function0;
+
+final class ScopedFunction0<T> implements Function0<T> {
+    private final ScopeContext context;
+    private final int slot;
+    private final Function0<T> body;
+
+    ScopedFunction0(ScopeContext context, int slot, Function0<T> body) {
+        this.context = context;
+        this.slot = slot;
+        this.body = body;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T invoke() throws Throwable {
+        var values = context.current.get();
+        // The scope of the parent provider does not contain the slots of the child ones
+        if (values == null || slot >= values.length) {
+            throw new IllegalStateException("The scoped service cannot be resolved outside of the scope");
+        }
+        var ret = values[slot];
+        if (ret == null) {
+            ret = body.invoke();
+            values[slot] = ret;
+        }
+        return (T) ret;
+    }
+}
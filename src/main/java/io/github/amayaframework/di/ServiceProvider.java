@@ -1,8 +1,10 @@
 package io.github.amayaframework.di;
 
+import com.github.romanqed.jfunc.Function0;
 import com.github.romanqed.jtype.JType;
 
 import java.lang.reflect.Type;
+import java.util.function.Consumer;
 
 /**
  * An interface describing an abstract provider that instantiates the requested service by specified type.
@@ -44,4 +46,118 @@ public interface ServiceProvider {
     default <T> T get(JType<T> type) {
         return get(type.getType());
     }
+
+    /**
+     * Resolves the service requested by specified type once and returns a reusable handle,
+     * which can be stored and invoked many times without a repository lookup.
+     * The handle remains valid while the repository entry is not changed.
+     * If the entry has been replaced, the handle resolves the type again,
+     * and if the entry has been removed, the handle invocation
+     * throws {@link TypeNotFoundException}.
+     * <br>
+     * The default implementation looks up the repository on each invocation.
+     *
+     * @param type the specified type
+     * @param <T>  service type
+     * @return the {@link Function0} instance, creating service instances
+     * @throws TypeNotFoundException if type not found
+     */
+    default <T> Function0<T> handle(Type type) {
+        var repository = getRepository();
+        if (!repository.contains(type)) {
+            throw new TypeNotFoundException(type);
+        }
+        return new ResolvingHandle<>(repository, type);
+    }
+
+    /**
+     * Resolves the service requested by specified class once and returns a reusable handle.
+     * See {@link ServiceProvider#handle(Type)} for details.
+     *
+     * @param type the specified class
+     * @param <T>  service type
+     * @return the {@link Function0} instance, creating service instances
+     * @throws TypeNotFoundException if class not found
+     */
+    default <T> Function0<T> handle(Class<T> type) {
+        return handle((Type) type);
+    }
+
+    /**
+     * Resolves the service requested by specified type once and returns a reusable handle.
+     * See {@link ServiceProvider#handle(Type)} for details.
+     *
+     * @param type the specified type
+     * @param <T>  service type
+     * @return the {@link Function0} instance, creating service instances
+     * @throws TypeNotFoundException if type not found
+     */
+    default <T> Function0<T> handle(JType<T> type) {
+        return handle(type.getType());
+    }
+
+    /**
+     * Creates a new scope, which instantiates services in the same way as this provider does,
+     * but keeps its own instances of the scoped services.
+     * Scoped services cannot be resolved outside of the scope.
+     * <br>
+     * The default implementation throws {@link UnsupportedOperationException}.
+     *
+     * @return {@link ServiceScope} instance
+     * @throws UnsupportedOperationException if this provider does not support scopes
+     */
+    default ServiceScope createScope() {
+        throw new UnsupportedOperationException("Scopes are not supported by this provider");
+    }
+
+    /**
+     * Creates a child provider, which contains the services registered by the specified function
+     * and inherits all other services from this provider.
+     * Only the registered services are built and validated, and their dependencies may be resolved by this provider.
+     * The entries of this provider are not copied, so the child shares its instantiators and singletons,
+     * and the resolution of an inherited service costs one extra lookup.
+     * <br>
+     * The child services override the inherited ones only for the child itself and its own children, since
+     * the services of this provider are already built. The scopes of the child also hold the scoped services
+     * of this provider. The builder passed to the function has the same kind and settings as the one
+     * that built this provider.
+     * <br>
+     * The default implementation throws {@link UnsupportedOperationException}.
+     *
+     * @param configurer the function registering the services of the child, must be non-null
+     * @return the child {@link ServiceProvider} instance
+     * @throws TypeNotFoundException         if the dependency of a child service has not been resolved (optional)
+     * @throws CycleFoundException           if a cyclic dependence is detected among the child services (optional)
+     * @throws UnsupportedOperationException if this provider does not support child providers
+     */
+    default ServiceProvider createChild(Consumer<ServiceProviderBuilder> configurer) {
+        throw new UnsupportedOperationException("Child providers are not supported by this provider");
+    }
+
+    /**
+     * Creates a new provider, which contains the services of this provider and the services registered
+     * by the specified function. The registered services replace the existing ones of the same types,
+     * and the elements of multi-bindings are appended to the existing elements.
+     * This provider remains unchanged.
+     * <br>
+     * Only the registered services and the services depending on them are built and validated again.
+     * The instantiators of other services are reused, so the unaffected singletons are shared with this provider.
+     * The manual services are rebuilt only if replaced, since their dependencies are unknown.
+     * If this provider is lazy, all services are registered again, since it is unknown which of the already
+     * built instantiators depend on the replaced services. So a lazy rebuild resets all singleton state:
+     * the singletons created by this provider are created again by the rebuilt one.
+     * The providers built by {@link CheckedProviderBuilder} support rebuilds only if
+     * {@link CheckedProviderBuilder#setRebuildable(boolean)} is enabled.
+     * <br>
+     * The default implementation throws {@link UnsupportedOperationException}.
+     *
+     * @param configurer the function registering the added and replacing services, must be non-null
+     * @return the rebuilt {@link ServiceProvider} instance
+     * @throws TypeNotFoundException         if the dependency of an affected service has not been resolved (optional)
+     * @throws CycleFoundException           if a registered service makes a cyclic dependence (optional)
+     * @throws UnsupportedOperationException if this provider does not support rebuilding
+     */
+    default ServiceProvider rebuild(Consumer<ServiceProviderBuilder> configurer) {
+        throw new UnsupportedOperationException("Rebuilding is not supported by this provider");
+    }
 }
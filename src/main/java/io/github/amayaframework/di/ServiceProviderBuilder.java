@@ -165,6 +165,117 @@ public interface ServiceProviderBuilder {
      */
     ServiceProviderBuilder addTransient(Class<?> type);
 
+    /**
+     * Adds a scoped service by its class, which is an implementation of the specified type.
+     * Scoped implies a dependency resolution policy in which each service request will return the same instance
+     * within one {@link ServiceScope}, and different scopes will receive different instances.
+     * Requesting a scoped service outside of the scope fails with {@link IllegalStateException}.
+     * <br>
+     * The default implementation throws {@link UnsupportedOperationException}.
+     *
+     * @param type           the specified type, must be non-null
+     * @param implementation the specified implementation class, must extend the service type and be non-null
+     * @return this {@link ServiceProviderBuilder} instance
+     * @throws UnsupportedOperationException if this builder does not support scoped services
+     */
+    default ServiceProviderBuilder addScoped(Type type, Class<?> implementation) {
+        throw new UnsupportedOperationException("Scoped services are not supported by this builder");
+    }
+
+    /**
+     * Adds a scoped service by its class, which is an implementation of the specified type.
+     * See {@link ServiceProviderBuilder#addScoped(Type, Class)} for details.
+     *
+     * @param type           the specified type, must be non-null
+     * @param implementation the specified implementation class, must extend the service type and be non-null
+     * @param <T>            the type of service
+     * @return this {@link ServiceProviderBuilder} instance
+     */
+    default <T> ServiceProviderBuilder addScoped(JType<T> type, Class<? extends T> implementation) {
+        return addScoped(type.getType(), implementation);
+    }
+
+    /**
+     * Adds a scoped service by its class, which is an implementation of the specified class.
+     * See {@link ServiceProviderBuilder#addScoped(Type, Class)} for details.
+     *
+     * @param type           the specified class, must be non-null
+     * @param implementation the specified implementation class, must extend the service type and be non-null
+     * @param <T>            the type of service
+     * @return this {@link ServiceProviderBuilder} instance
+     */
+    default <T> ServiceProviderBuilder addScoped(Class<T> type, Class<? extends T> implementation) {
+        return addScoped((Type) type, implementation);
+    }
+
+    /**
+     * Adds a scoped service by its class,
+     * that will be used as service type and service implementation at the same time.
+     * See {@link ServiceProviderBuilder#addScoped(Type, Class)} for details.
+     *
+     * @param type the specified class, must be non-null
+     * @return this {@link ServiceProviderBuilder} instance
+     */
+    default ServiceProviderBuilder addScoped(Class<?> type) {
+        return addScoped(type, type);
+    }
+
+    /**
+     * Adds a resolution-scoped service by its class, which is an implementation of the specified type.
+     * Resolution-scoped implies a dependency resolution policy in which all dependents, created during
+     * the single service request, receive the same instance, and each new request creates a new instance.
+     * The sharing is performed by the used {@link io.github.amayaframework.di.stub.StubFactory},
+     * if it does not support it, the service will behave as a transient one.
+     * <br>
+     * The default implementation throws {@link UnsupportedOperationException}.
+     *
+     * @param type           the specified type, must be non-null
+     * @param implementation the specified implementation class, must extend the service type and be non-null
+     * @return this {@link ServiceProviderBuilder} instance
+     * @throws UnsupportedOperationException if this builder does not support resolution-scoped services
+     */
+    default ServiceProviderBuilder addResolutionScoped(Type type, Class<?> implementation) {
+        throw new UnsupportedOperationException("Resolution-scoped services are not supported by this builder");
+    }
+
+    /**
+     * Adds a resolution-scoped service by its class, which is an implementation of the specified type.
+     * See {@link ServiceProviderBuilder#addResolutionScoped(Type, Class)} for details.
+     *
+     * @param type           the specified type, must be non-null
+     * @param implementation the specified implementation class, must extend the service type and be non-null
+     * @param <T>            the type of service
+     * @return this {@link ServiceProviderBuilder} instance
+     */
+    default <T> ServiceProviderBuilder addResolutionScoped(JType<T> type, Class<? extends T> implementation) {
+        return addResolutionScoped(type.getType(), implementation);
+    }
+
+    /**
+     * Adds a resolution-scoped service by its class, which is an implementation of the specified class.
+     * See {@link ServiceProviderBuilder#addResolutionScoped(Type, Class)} for details.
+     *
+     * @param type           the specified class, must be non-null
+     * @param implementation the specified implementation class, must extend the service type and be non-null
+     * @param <T>            the type of service
+     * @return this {@link ServiceProviderBuilder} instance
+     */
+    default <T> ServiceProviderBuilder addResolutionScoped(Class<T> type, Class<? extends T> implementation) {
+        return addResolutionScoped((Type) type, implementation);
+    }
+
+    /**
+     * Adds a resolution-scoped service by its class,
+     * that will be used as service type and service implementation at the same time.
+     * See {@link ServiceProviderBuilder#addResolutionScoped(Type, Class)} for details.
+     *
+     * @param type the specified class, must be non-null
+     * @return this {@link ServiceProviderBuilder} instance
+     */
+    default ServiceProviderBuilder addResolutionScoped(Class<?> type) {
+        return addResolutionScoped(type, type);
+    }
+
     /**
      * Adds a service by its instantiator, which creates instances of the specified type.
      *
@@ -219,6 +330,43 @@ public interface ServiceProviderBuilder {
         return addService(instance.getClass(), () -> instance);
     }
 
+    /**
+     * Adds the element type to the list multi-binding of the specified type.
+     * The dependencies of {@code List<type>} receive an immutable list of the element instances
+     * in the order of registration. The element instantiators are resolved once, when the binding is built, so
+     * the elements must be registered as regular services, and their lifetimes are preserved.
+     * The list itself is assembled on each resolution.
+     * An explicitly registered {@code List<type>} service takes precedence over the multi-binding.
+     * To remove the multi-binding, pass {@code List<type>} to {@link ServiceProviderBuilder#removeService(Type)}.
+     * <br>
+     * The default implementation throws {@link UnsupportedOperationException}.
+     *
+     * @param type    the element type of the list, must be non-null
+     * @param element the type of the registered service added to the list, must be non-null
+     * @return this {@link ServiceProviderBuilder} instance
+     * @throws UnsupportedOperationException if this builder does not support multi-bindings
+     */
+    default ServiceProviderBuilder addToList(Type type, Type element) {
+        throw new UnsupportedOperationException("Multi-bindings are not supported by this builder");
+    }
+
+    /**
+     * Adds the element type to the set multi-binding of the specified type.
+     * Works in the same way as {@link ServiceProviderBuilder#addToList(Type, Type)}, but the dependencies of
+     * {@code Set<type>} receive an immutable set of the element instances. The iteration order of the set
+     * is unspecified, the equal instances are merged, and the instances must be non-null.
+     * <br>
+     * The default implementation throws {@link UnsupportedOperationException}.
+     *
+     * @param type    the element type of the set, must be non-null
+     * @param element the type of the registered service added to the set, must be non-null
+     * @return this {@link ServiceProviderBuilder} instance
+     * @throws UnsupportedOperationException if this builder does not support multi-bindings
+     */
+    default ServiceProviderBuilder addToSet(Type type, Type element) {
+        throw new UnsupportedOperationException("Multi-bindings are not supported by this builder");
+    }
+
     /**
      * Removes the service that implements the specified type.
      *
@@ -1,14 +1,20 @@
 package io.github.amayaframework.di;
 
 import com.github.romanqed.jfunc.Exceptions;
+import com.github.romanqed.jfunc.Function0;
 
 import java.lang.reflect.Type;
+import java.util.function.Consumer;
 
 final class ServiceProviderImpl implements ServiceProvider {
     private final ServiceRepository repository;
+    private final ScopeContext context;
+    private final CheckedProviderBuilder template;
 
-    ServiceProviderImpl(ServiceRepository repository) {
+    ServiceProviderImpl(ServiceRepository repository, ScopeContext context, CheckedProviderBuilder template) {
         this.repository = repository;
+        this.context = context;
+        this.template = template;
     }
 
     @Override
@@ -35,4 +41,31 @@ final class ServiceProviderImpl implements ServiceProvider {
         }
         return (T) Exceptions.suppress(supplier);
     }
+
+    @Override
+    public <T> Function0<T> handle(Type type) {
+        // The default repository tracks its modifications, so the found entry can be reused until it changes
+        if (repository instanceof RepositoryImpl) {
+            return new VersionedHandle<>((RepositoryImpl) repository, type);
+        }
+        if (!repository.contains(type)) {
+            throw new TypeNotFoundException(type);
+        }
+        return new ResolvingHandle<>(repository, type);
+    }
+
+    @Override
+    public ServiceScope createScope() {
+        return new ServiceScope(this, context);
+    }
+
+    @Override
+    public ServiceProvider createChild(Consumer<ServiceProviderBuilder> configurer) {
+        return template.buildChild(repository, context, configurer);
+    }
+
+    @Override
+    public ServiceProvider rebuild(Consumer<ServiceProviderBuilder> configurer) {
+        return template.rebuild(context, configurer);
+    }
 }
@@ -0,0 +1,126 @@
+package io.github.amayaframework.di;
+
+import com.github.romanqed.jfunc.Function0;
+
+import java.lang.reflect.Type;
+import java.util.function.Consumer;
+
+/**
+ * A lightweight {@link ServiceProvider} implementation, which holds the instances of scoped services.
+ * Each scoped service is created at most once per scope, all other services are resolved as usual.
+ * The instances are stored in an array, pre-sized on build, so opening a scope costs one small allocation.
+ * The stubs are shared by all scopes, so the array is published through a thread local for the duration
+ * of each request: a request costs setting and removing it, and a scoped lookup costs reading it.
+ * <br>
+ * The scope can be used by one thread at a time, but there can be any number of scopes
+ * created by the same provider at the same time. After closing, the scope releases all held instances
+ * (without closing them) and cannot be used anymore.
+ */
+public final class ServiceScope implements ServiceProvider, AutoCloseable {
+    private final ServiceProvider provider;
+    private final ScopeContext context;
+    private Object[] values;
+
+    ServiceScope(ServiceProvider provider, ScopeContext context) {
+        this.provider = provider;
+        this.context = context;
+        this.values = context.allocate();
+    }
+
+    private Object[] enter() {
+        var values = this.values;
+        if (values == null) {
+            throw new IllegalStateException("The scope is closed");
+        }
+        var current = context.current;
+        var ret = current.get();
+        current.set(values);
+        return ret;
+    }
+
+    private void exit(Object[] previous) {
+        if (previous == null) {
+            context.current.remove();
+        } else {
+            context.current.set(previous);
+        }
+    }
+
+    @Override
+    public ServiceRepository getRepository() {
+        return provider.getRepository();
+    }
+
+    @Override
+    public <T> T get(Type type) {
+        var previous = enter();
+        try {
+            return provider.get(type);
+        } finally {
+            exit(previous);
+        }
+    }
+
+    @Override
+    public <T> T get(Class<T> type) {
+        var previous = enter();
+        try {
+            return provider.get(type);
+        } finally {
+            exit(previous);
+        }
+    }
+
+    @Override
+    public <T> Function0<T> handle(Type type) {
+        var handle = provider.<T>handle(type);
+        return () -> {
+            var previous = enter();
+            try {
+                return handle.invoke();
+            } finally {
+                exit(previous);
+            }
+        };
+    }
+
+    /**
+     * Creates a new scope, independent of this one.
+     *
+     * @return {@link ServiceScope} instance
+     */
+    @Override
+    public ServiceScope createScope() {
+        return provider.createScope();
+    }
+
+    /**
+     * Creates a child of the provider that created this scope.
+     *
+     * @param configurer the function registering the services of the child, must be non-null
+     * @return the child {@link ServiceProvider} instance
+     */
+    @Override
+    public ServiceProvider createChild(Consumer<ServiceProviderBuilder> configurer) {
+        return provider.createChild(configurer);
+    }
+
+    @Override
+    public ServiceProvider rebuild(Consumer<ServiceProviderBuilder> configurer) {
+        return provider.rebuild(configurer);
+    }
+
+    /**
+     * Checks whether this scope is closed.
+     *
+     * @return true, if closed, false otherwise
+     */
+    public boolean isClosed() {
+        return values == null;
+    }
+
+    @Override
+    public void close() {
+        values = null;
+    }
+}
@@ -0,0 +1,121 @@
+package io.github.amayaframework.di;
+
+import com.github.romanqed.jfunc.Function0;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+
+/**
+ * A thread-safe {@link Function0} implementation that invokes the wrapped function exactly once
+ * and then returns its result. Used as the default wrapper for singleton services.
+ * <br>
+ * The monitor of this instance is held only while the value is being created, so concurrent first calls
+ * wait for a single initialization instead of creating several instances.
+ * After that, the read path consists of one acquire load and performs neither locking nor volatile writes.
+ * <br>
+ * If the wrapped function throws an exception, then, depending on the policy, either the next call will retry
+ * the initialization, or the exception will be cached and rethrown on all subsequent calls.
+ *
+ * @param <T> the type of the returned value
+ */
+public final class SingletonFunction0<T> implements Function0<T> {
+    private static final VarHandle VALUE;
+    // Marks that the wrapped function has returned null
+    private static final Object NIL = new Object();
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(SingletonFunction0.class, "value", Object.class);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final boolean cacheFailure;
+    private Function0<T> body;
+    // null - not initialized, NIL - null value, Failure - cached exception
+    private Object value;
+
+    /**
+     * Constructs {@link SingletonFunction0} with the specified function and failure policy.
+     *
+     * @param body         the specified function, must be non-null
+     * @param cacheFailure true, if the thrown exception should be rethrown on all subsequent calls,
+     *                     false, if the next call should retry the initialization
+     */
+    public SingletonFunction0(Function0<T> body, boolean cacheFailure) {
+        this.body = Objects.requireNonNull(body);
+        this.cacheFailure = cacheFailure;
+    }
+
+    /**
+     * Constructs {@link SingletonFunction0} with the specified function.
+     * Failed initialization will be retried on the next call.
+     *
+     * @param body the specified function, must be non-null
+     */
+    public SingletonFunction0(Function0<T> body) {
+        this(body, false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T unwrap(Object value) throws Throwable {
+        if (value == NIL) {
+            return null;
+        }
+        if (value.getClass() == Failure.class) {
+            throw ((Failure) value).cause;
+        }
+        return (T) value;
+    }
+
+    private synchronized Object init() throws Throwable {
+        // Plain read is enough, since the value is written only under the lock
+        var ret = value;
+        if (ret != null) {
+            return ret;
+        }
+        try {
+            ret = body.invoke();
+            if (ret == null) {
+                ret = NIL;
+            }
+        } catch (Throwable e) {
+            if (!cacheFailure) {
+                throw e;
+            }
+            ret = new Failure(e);
+        }
+        VALUE.setRelease(this, ret);
+        // Release the function, it will never be called again
+        body = null;
+        return ret;
+    }
+
+    /**
+     * Checks whether the value has been created (or the failure has been cached).
+     *
+     * @return true, if initialized, false otherwise
+     */
+    public boolean isInitialized() {
+        return VALUE.getAcquire(this) != null;
+    }
+
+    @Override
+    public T invoke() throws Throwable {
+        var ret = VALUE.getAcquire(this);
+        if (ret == null) {
+            ret = init();
+        }
+        return unwrap(ret);
+    }
+
+    private static final class Failure {
+        final Throwable cause;
+
+        private Failure(Throwable cause) {
+            this.cause = cause;
+        }
+    }
+}
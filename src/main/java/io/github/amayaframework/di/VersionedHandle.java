@@ -0,0 +1,49 @@
+package io.github.amayaframework.di;
+
+import com.github.romanqed.jfunc.Function0;
+
+import java.lang.reflect.Type;
+
+@SuppressWarnings("unchecked")
+final class VersionedHandle<T> implements Function0<T> {
+    private final RepositoryImpl repository;
+    private final Type type;
+    private Entry entry;
+
+    VersionedHandle(RepositoryImpl repository, Type type) {
+        this.repository = repository;
+        this.type = type;
+        this.entry = refresh();
+    }
+
+    private Entry refresh() {
+        // The version is read first, so a concurrent modification makes the entry outdated rather than lost
+        var version = repository.version;
+        var supplier = repository.get(type);
+        if (supplier == null) {
+            throw new TypeNotFoundException(type);
+        }
+        var ret = new Entry(supplier, version);
+        this.entry = ret;
+        return ret;
+    }
+
+    @Override
+    public T invoke() throws Throwable {
+        var entry = this.entry;
+        if (entry.version != repository.version) {
+            entry = refresh();
+        }
+        return (T) entry.supplier.invoke();
+    }
+
+    private static final class Entry {
+        final Function0<Object> supplier;
+        final int version;
+
+        Entry(Function0<Object> supplier, int version) {
+            this.supplier = supplier;
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package io.github.amayaframework.di.scheme;
+
+import java.lang.annotation.Annotation;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link SchemeFactory} decorator that caches the created schemes, so that the reflection is performed
+ * only once per class. The schemes are stored in a {@link ClassValue}, so the cached entries do not prevent
+ * the classes (and their class loaders) from being unloaded.
+ * <br>
+ * Errors are not cached: if the decorated factory throws an exception, it will be called again next time.
+ * The factory is thread-safe as long as the decorated factory is thread-safe.
+ */
+public final class CachedSchemeFactory implements SchemeFactory {
+    private static final ClassValue<Map<TypeProcessor, CachedSchemeFactory>> SHARED = new ClassValue<>() {
+        @Override
+        protected Map<TypeProcessor, CachedSchemeFactory> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private final SchemeFactory factory;
+    private final ClassValue<ClassScheme> schemes;
+    private final LongAdder requests;
+    private final LongAdder misses;
+
+    /**
+     * Constructs {@link CachedSchemeFactory}, decorating the specified factory.
+     *
+     * @param factory the specified factory, must be non-null
+     */
+    public CachedSchemeFactory(SchemeFactory factory) {
+        this.factory = Objects.requireNonNull(factory);
+        this.requests = new LongAdder();
+        this.misses = new LongAdder();
+        this.schemes = new ClassValue<>() {
+            @Override
+            protected ClassScheme computeValue(Class<?> type) {
+                misses.increment();
+                return factory.create(type);
+            }
+        };
+    }
+
+    /**
+     * Returns the process-wide {@link CachedSchemeFactory}, decorating {@link ReflectionSchemeFactory}
+     * with the specified type processor and annotation. All calls with the same arguments return the same instance,
+     * so the schemes are shared between all builders using it.
+     *
+     * @param processor  the specified type processor, must be non-null
+     * @param annotation the specified annotation type, must be non-null
+     * @return {@link CachedSchemeFactory} instance
+     */
+    public static CachedSchemeFactory shared(TypeProcessor processor, Class<? extends Annotation> annotation) {
+        Objects.requireNonNull(processor);
+        return SHARED.get(annotation).computeIfAbsent(
+                processor,
+                key -> new CachedSchemeFactory(new ReflectionSchemeFactory(key, annotation))
+        );
+    }
+
+    /**
+     * Returns the process-wide {@link CachedSchemeFactory}, decorating {@link ReflectionSchemeFactory}
+     * with the default type processor and the specified annotation.
+     *
+     * @param annotation the specified annotation type, must be non-null
+     * @return {@link CachedSchemeFactory} instance
+     */
+    public static CachedSchemeFactory shared(Class<? extends Annotation> annotation) {
+        return shared(ReflectionSchemeFactory.TYPE_PROCESSOR, annotation);
+    }
+
+    /**
+     * Returns the number of requests served from the cache.
+     *
+     * @return the number of hits
+     */
+    public long getHits() {
+        return requests.sum() - misses.sum();
+    }
+
+    /**
+     * Returns the number of requests that required the scheme creation.
+     *
+     * @return the number of misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Removes the cached scheme of the specified class, if any.
+     *
+     * @param clazz the specified class, must be non-null
+     */
+    public void invalidate(Class<?> clazz) {
+        schemes.remove(clazz);
+    }
+
+    @Override
+    public ClassScheme create(Class<?> clazz) {
+        requests.increment();
+        return schemes.get(clazz);
+    }
+}
@@ -51,9 +51,12 @@ import java.util.stream.Collectors;
  * {@code ? extends Object => Object}
  * <br>
  * {@code ? extends Type => Type}
+ * <br>
+ * The factory does not hold any mutable state, so it is thread-safe as long as the used
+ * {@link TypeProcessor} is thread-safe.
  */
 public final class ReflectionSchemeFactory implements SchemeFactory {
-    private static final TypeProcessor TYPE_PROCESSOR = new ReflectionTypeProcessor();
+    static final TypeProcessor TYPE_PROCESSOR = new ReflectionTypeProcessor();
     private final TypeProcessor processor;
     private final Class<? extends Annotation> annotation;
 
@@ -6,6 +6,7 @@ import java.lang.reflect.*;
 
 /**
  * A simple reflective implementation of the {@link TypeProcessor}. Ignores any annotations.
+ * The processed generic types are interned by {@link TypeInterner}, so equal types share the same instance.
  */
 public class ReflectionTypeProcessor implements TypeProcessor {
 
@@ -19,16 +20,16 @@ public class ReflectionTypeProcessor implements TypeProcessor {
             for (var i = 0; i < length; ++i) {
                 parameters[i] = process(arguments[i]);
             }
-            return Types.ofOwned(
+            return TypeInterner.intern(Types.ofOwned(
                     process(parameterized.getOwnerType()),
                     parameterized.getRawType(),
                     parameters
-            );
+            ));
         }
         // process(Type)[][][]...
         if (type instanceof GenericArrayType) {
             var array = (GenericArrayType) type;
-            return Types.of(process(array.getGenericComponentType()));
+            return TypeInterner.intern(Types.of(process(array.getGenericComponentType())));
         }
         // Turn wildcards to its upper bounds
         if (type instanceof WildcardType) {
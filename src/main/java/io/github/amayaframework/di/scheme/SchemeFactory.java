@@ -2,6 +2,7 @@ package io.github.amayaframework.di.scheme;
 
 /**
  * An interface describing an abstract factory that creates scheme for the specified class.
+ * Implementations must be thread-safe, since the builder may create schemes concurrently.
  */
 public interface SchemeFactory {
 
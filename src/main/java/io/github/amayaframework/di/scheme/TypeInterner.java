@@ -0,0 +1,96 @@
+package io.github.amayaframework.di.scheme;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A thread-safe table of canonical {@link Type} instances.
+ * For each distinct generic type, {@link TypeInterner#intern(Type)} returns the same instance, so the maps keyed by
+ * interned types find their entries by the identity check, without the deep comparison of type arguments.
+ * Classes are canonical by themselves and are returned as is.
+ * <br>
+ * The table references the types weakly, so it does not prevent the unloading of the classes they consist of.
+ */
+public final class TypeInterner {
+    private static final Map<Key, Key> TABLE = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<Type> QUEUE = new ReferenceQueue<>();
+
+    private TypeInterner() {
+    }
+
+    private static void expunge() {
+        var reference = QUEUE.poll();
+        while (reference != null) {
+            TABLE.remove(reference);
+            reference = QUEUE.poll();
+        }
+    }
+
+    /**
+     * Returns the canonical instance of the specified type.
+     * If there is no instance equal to the type in the table, the type itself becomes canonical.
+     *
+     * @param type the specified type, must be non-null
+     * @return the canonical instance equal to the specified type
+     */
+    public static Type intern(Type type) {
+        if (type instanceof Class) {
+            return type;
+        }
+        Objects.requireNonNull(type);
+        expunge();
+        var hash = type.hashCode();
+        var probe = new Key(type, hash, null);
+        while (true) {
+            var found = TABLE.get(probe);
+            if (found != null) {
+                var ret = found.get();
+                if (ret != null) {
+                    return ret;
+                }
+                // The canonical instance has been collected, but the queue has not been polled yet
+                TABLE.remove(found, found);
+                continue;
+            }
+            var key = new Key(type, hash, QUEUE);
+            if (TABLE.putIfAbsent(key, key) == null) {
+                return type;
+            }
+        }
+    }
+
+    private static final class Key extends WeakReference<Type> {
+        private final int hash;
+
+        private Key(Type type, int hash, ReferenceQueue<Type> queue) {
+            super(type, queue);
+            this.hash = hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (this == object) {
+                return true;
+            }
+            if (!(object instanceof Key)) {
+                return false;
+            }
+            var key = (Key) object;
+            if (hash != key.hash) {
+                return false;
+            }
+            // Cleared keys are equal only to themselves, so they can be removed by identity
+            var type = get();
+            return type != null && type.equals(key.get());
+        }
+    }
+}
@@ -6,6 +6,7 @@ import java.lang.reflect.Type;
 /**
  * An interface describing an abstract type processor
  * that performs their processing for subsequent use in the injection scheme.
+ * Implementations must be thread-safe, since the scheme factories may call them concurrently.
  */
 public interface TypeProcessor {
 
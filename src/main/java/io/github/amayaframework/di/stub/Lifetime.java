@@ -0,0 +1,34 @@
+package io.github.amayaframework.di.stub;
+
+/**
+ * An enumeration describing the lifetime of the service implementation,
+ * that is, how its instantiator is obtained from the stub created by the {@link StubFactory}.
+ */
+public enum Lifetime {
+    /**
+     * The stub is used as is, each call creates a new instance.
+     */
+    TRANSIENT,
+
+    /**
+     * The stub is wrapped so that the instance is created once, on first call.
+     */
+    SINGLETON,
+
+    /**
+     * The stub is wrapped so that the instance is created once per scope.
+     */
+    SCOPED,
+
+    /**
+     * The stub is used as is, but the stub factory may share one instance within a single resolution,
+     * that is, within a single invocation of the stub depending on this type.
+     * If the stub factory does not support it, the lifetime is equivalent to {@link Lifetime#TRANSIENT}.
+     */
+    RESOLUTION,
+
+    /**
+     * The stub is wrapped by an arbitrary user-defined wrapper.
+     */
+    CUSTOM
+}
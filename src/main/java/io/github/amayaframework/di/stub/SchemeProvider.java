@@ -0,0 +1,30 @@
+package io.github.amayaframework.di.stub;
+
+import io.github.amayaframework.di.scheme.ClassScheme;
+
+import java.lang.reflect.Type;
+
+/**
+ * An interface describing the {@link TypeProvider} that also knows how the provided types are built.
+ * It allows {@link StubFactory} implementations to look beyond the direct dependencies of the scheme.
+ */
+public interface SchemeProvider extends TypeProvider {
+
+    /**
+     * Gets the class scheme used to build the implementation of the specified type.
+     *
+     * @param type the specified type
+     * @return null, if the type is not built by the scheme (for example, it was added as an instance
+     * or already presents in the repository), {@link ClassScheme} instance otherwise
+     */
+    ClassScheme getScheme(Type type);
+
+    /**
+     * Gets the lifetime of the implementation of the specified type.
+     * The lifetime is known only for types, built by the scheme.
+     *
+     * @param type the specified type
+     * @return null or {@link Lifetime} instance
+     */
+    Lifetime getLifetime(Type type);
+}
@@ -0,0 +1,74 @@
+package io.github.amayaframework.di.stub;
+
+import com.github.romanqed.jfunc.Function0;
+import io.github.amayaframework.di.scheme.ClassScheme;
+
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
+
+// A read-only copy of the part of the scheme provider reachable from the class scheme.
+// Only transient and resolution-scoped types can be inlined into the stubs, so only their dependencies are copied.
+// The builders forget the schemes after the build, so they are copied when the stub is created,
+// and the instantiators are resolved later, when the upgrade is started
+final class SchemeSnapshot implements SchemeProvider {
+    private final Map<Type, ClassScheme> schemes;
+    private final Map<Type, Lifetime> lifetimes;
+    private final Map<Type, Function0<Object>> suppliers;
+
+    private SchemeSnapshot(Map<Type, ClassScheme> schemes,
+                           Map<Type, Lifetime> lifetimes,
+                           Map<Type, Function0<Object>> suppliers) {
+        this.schemes = schemes;
+        this.lifetimes = lifetimes;
+        this.suppliers = suppliers;
+    }
+
+    private static void copy(ClassScheme scheme,
+                             SchemeProvider provider,
+                             Map<Type, ClassScheme> schemes,
+                             Map<Type, Lifetime> lifetimes) {
+        for (var type : scheme.getTypes()) {
+            if (schemes.containsKey(type)) {
+                continue;
+            }
+            var found = provider.getScheme(type);
+            var lifetime = provider.getLifetime(type);
+            schemes.put(type, found);
+            lifetimes.put(type, lifetime);
+            if (found != null && (lifetime == Lifetime.TRANSIENT || lifetime == Lifetime.RESOLUTION)) {
+                copy(found, provider, schemes, lifetimes);
+            }
+        }
+    }
+
+    static SchemeSnapshot of(ClassScheme scheme, SchemeProvider provider) {
+        var schemes = new HashMap<Type, ClassScheme>();
+        var lifetimes = new HashMap<Type, Lifetime>();
+        copy(scheme, provider, schemes, lifetimes);
+        return new SchemeSnapshot(schemes, lifetimes, Map.of());
+    }
+
+    SchemeSnapshot resolve(TypeProvider provider) {
+        var resolved = new HashMap<Type, Function0<Object>>();
+        for (var type : schemes.keySet()) {
+            resolved.put(type, provider.apply(type));
+        }
+        return new SchemeSnapshot(schemes, lifetimes, resolved);
+    }
+
+    @Override
+    public ClassScheme getScheme(Type type) {
+        return schemes.get(type);
+    }
+
+    @Override
+    public Lifetime getLifetime(Type type) {
+        return lifetimes.get(type);
+    }
+
+    @Override
+    public Function0<Object> apply(Type type) {
+        return suppliers.get(type);
+    }
+}
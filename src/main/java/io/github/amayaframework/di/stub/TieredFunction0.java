@@ -0,0 +1,41 @@
+package io.github.amayaframework.di.stub;
+
+import com.github.romanqed.jfunc.Function0;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+@SuppressWarnings("rawtypes")
+final class TieredFunction0 implements Function0 {
+    private final AtomicBoolean upgrading;
+    private volatile Function0 body;
+
+    TieredFunction0(Function0 stub, int threshold, Predicate<TieredFunction0> upgrader) {
+        this.upgrading = new AtomicBoolean();
+        // Until the upgrade, the calls go through the counting stub, after it directly to the upgraded one
+        this.body = new Function0() {
+            private int counter;
+
+            @Override
+            public Object invoke() throws Throwable {
+                if (++counter >= threshold && !upgrading.get() && upgrading.compareAndSet(false, true)) {
+                    // The rejected upgrade is retried after the next threshold invocations
+                    if (!upgrader.test(TieredFunction0.this)) {
+                        counter = 0;
+                        upgrading.set(false);
+                    }
+                }
+                return stub.invoke();
+            }
+        };
+    }
+
+    void replace(Function0 stub) {
+        this.body = stub;
+    }
+
+    @Override
+    public Object invoke() throws Throwable {
+        return body.invoke();
+    }
+}
@@ -0,0 +1,131 @@
+package io.github.amayaframework.di.stub;
+
+import com.github.romanqed.jfunc.Function0;
+import io.github.amayaframework.di.scheme.ClassScheme;
+
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link StubFactory} that combines a factory with cheap stub creation and a factory with fast stubs.
+ * Initially, the instantiators are created by the first factory. Each instantiator counts its invocations,
+ * and after the specified threshold is reached, the instantiator for the same scheme is created by
+ * the second factory in the background and atomically replaces the initial one.
+ * <br>
+ * For example, {@code new TieredStubFactory(new ReflectStubFactory(), new BytecodeStubFactory(), 1000)}
+ * gives fast container building and generates bytecode only for the services requested frequently.
+ * <br>
+ * The invocation counter is not synchronized, so the threshold is approximate under contention,
+ * but the upgrade is started only once. If the upgrade fails, the initial instantiator remains in use.
+ * If the executor rejects the upgrade, it is counted as failed and retried after the next threshold invocations.
+ * <br>
+ * The dependencies of the upgraded instantiator are resolved on the invoking thread, and the background
+ * upgrade uses only them, so the provider passed to {@link TieredStubFactory#create(ClassScheme, TypeProvider)}
+ * is never accessed concurrently, even if the threshold is reached during the build.
+ * If it is a {@link SchemeProvider}, the schemes and lifetimes of the transitive transient and resolution-scoped
+ * dependencies are copied when the initial instantiator is created, since the builders may forget them after
+ * the build. So the optimized factory can inline them as if it were used directly.
+ */
+public final class TieredStubFactory implements StubFactory {
+    private final StubFactory initial;
+    private final StubFactory optimized;
+    private final int threshold;
+    private final Executor executor;
+    private final LongAdder upgrades;
+    private final LongAdder failures;
+
+    /**
+     * Constructs {@link TieredStubFactory} with the specified factories, threshold and executor.
+     *
+     * @param initial   the factory creating the initial instantiators, must be non-null
+     * @param optimized the factory creating the upgraded instantiators, must be non-null
+     * @param threshold the number of invocations after which the instantiator is upgraded, must be positive
+     * @param executor  the executor running the upgrades, must be non-null
+     */
+    public TieredStubFactory(StubFactory initial, StubFactory optimized, int threshold, Executor executor) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("The threshold must be positive");
+        }
+        this.initial = Objects.requireNonNull(initial);
+        this.optimized = Objects.requireNonNull(optimized);
+        this.threshold = threshold;
+        this.executor = Objects.requireNonNull(executor);
+        this.upgrades = new LongAdder();
+        this.failures = new LongAdder();
+    }
+
+    /**
+     * Constructs {@link TieredStubFactory} with the specified factories and threshold,
+     * running the upgrades in the {@link ForkJoinPool#commonPool()}.
+     *
+     * @param initial   the factory creating the initial instantiators, must be non-null
+     * @param optimized the factory creating the upgraded instantiators, must be non-null
+     * @param threshold the number of invocations after which the instantiator is upgraded, must be positive
+     */
+    public TieredStubFactory(StubFactory initial, StubFactory optimized, int threshold) {
+        this(initial, optimized, threshold, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns the number of instantiators that have been upgraded.
+     *
+     * @return the number of upgrades
+     */
+    public long getUpgrades() {
+        return upgrades.sum();
+    }
+
+    /**
+     * Returns the number of upgrades that have failed.
+     *
+     * @return the number of failures
+     */
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    private static TypeProvider snapshot(ClassScheme scheme, SchemeSnapshot schemes, TypeProvider provider) {
+        // The scheme provider lets the optimized factory inline the dependencies, so it must be kept
+        if (schemes != null) {
+            return schemes.resolve(provider);
+        }
+        var resolved = new HashMap<Type, Function0<Object>>();
+        for (var type : scheme.getTypes()) {
+            resolved.put(type, provider.apply(type));
+        }
+        return resolved::get;
+    }
+
+    private boolean upgrade(TieredFunction0 stub, ClassScheme scheme, SchemeSnapshot schemes, TypeProvider provider) {
+        // The provider may be not thread-safe, so the background task gets a read-only snapshot of the dependencies
+        var snapshot = snapshot(scheme, schemes, provider);
+        try {
+            executor.execute(() -> {
+                try {
+                    stub.replace(optimized.create(scheme, snapshot));
+                    upgrades.increment();
+                } catch (Throwable e) {
+                    failures.increment();
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            failures.increment();
+            return false;
+        }
+    }
+
+    @Override
+    public Function0<?> create(ClassScheme scheme, TypeProvider provider) {
+        Objects.requireNonNull(scheme);
+        Objects.requireNonNull(provider);
+        var stub = initial.create(scheme, provider);
+        var schemes = provider instanceof SchemeProvider ? SchemeSnapshot.of(scheme, (SchemeProvider) provider) : null;
+        return new TieredFunction0(stub, threshold, ret -> upgrade(ret, scheme, schemes, provider));
+    }
+}
@@ -5,9 +5,11 @@ import io.github.amayaframework.di.scheme.*;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 
 public class SchemeTest extends Assertions {
@@ -29,6 +31,30 @@ public class SchemeTest extends Assertions {
         testEmptyClass(REFLECTION_FACTORY);
     }
 
+    @Test
+    public void testCachedFactory() {
+        var created = new AtomicInteger();
+        var factory = new CachedSchemeFactory(clazz -> {
+            created.incrementAndGet();
+            return REFLECTION_FACTORY.create(clazz);
+        });
+        testEmptyClass(factory);
+        assertSame(factory.create(Empty.class), factory.create(Empty.class));
+        assertEquals(1, created.get());
+        assertEquals(1, factory.getMisses());
+        assertEquals(2, factory.getHits());
+        // Errors are not cached
+        assertThrows(IllegalClassException.class, () -> factory.create(NoConstructors.class));
+        assertThrows(IllegalClassException.class, () -> factory.create(NoConstructors.class));
+        assertEquals(3, created.get());
+        factory.invalidate(Empty.class);
+        factory.create(Empty.class);
+        assertEquals(4, created.get());
+        // Shared instances
+        assertSame(CachedSchemeFactory.shared(Inject.class), CachedSchemeFactory.shared(Inject.class));
+        assertNotSame(CachedSchemeFactory.shared(Inject.class), CachedSchemeFactory.shared(Deprecated.class));
+    }
+
     public void testNoConstructors(SchemeFactory factory) {
         assertThrows(IllegalClassException.class, () -> factory.create(NoConstructors.class));
     }
@@ -325,6 +351,27 @@ public class SchemeTest extends Assertions {
         public List<? extends String> w7;
     }
 
+    @Test
+    public void testInternedTypes() {
+        var scheme = REFLECTION_FACTORY.create(Generics.class);
+        var expected = Types.of(List.class, String.class);
+        var interned = TypeInterner.intern(expected);
+        assertEquals(expected, interned);
+        assertSame(interned, TypeInterner.intern(Types.of(List.class, String.class)));
+        assertSame(String.class, TypeInterner.intern(String.class));
+        // All occurrences of the same generic type share the canonical instance
+        var found = scheme.getTypes().stream().filter(expected::equals).findFirst().orElseThrow();
+        assertSame(interned, found);
+        var g2 = (ParameterizedType) scheme
+                .getFieldSchemes()
+                .stream()
+                .filter(field -> field.getTarget().getName().equals("g2"))
+                .findFirst()
+                .orElseThrow()
+                .getType();
+        assertSame(interned, g2.getActualTypeArguments()[1]);
+    }
+
     public static final class InvalidWildcard {
         @Inject
         public List<? super Integer> f1;
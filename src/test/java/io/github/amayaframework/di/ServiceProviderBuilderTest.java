@@ -1,10 +1,21 @@
 package io.github.amayaframework.di;
 
+import com.github.romanqed.jfunc.Function0;
+import com.github.romanqed.jtype.Types;
+import io.github.amayaframework.di.scheme.ClassScheme;
+import io.github.amayaframework.di.scheme.IllegalClassException;
+import io.github.amayaframework.di.stub.Lifetime;
+import io.github.amayaframework.di.stub.SchemeProvider;
 import io.github.amayaframework.di.stub.StubFactory;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
-import java.util.Objects;
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 public class ServiceProviderBuilderTest extends Assertions {
     private static final StubFactory BYTECODE_FACTORY = (scheme, provider) -> () -> null;
@@ -124,6 +135,468 @@ public class ServiceProviderBuilderTest extends Assertions {
         testRemoval(MANUAL_BUILDER);
     }
 
+    @Test
+    public void testFrozen() {
+        var builder = new CheckedProviderBuilder(ProviderBuilders.REFLECTION_FACTORY, BYTECODE_FACTORY).setFrozen(true);
+        var provider = builder
+                .addTransient(Service.class)
+                .addTransient(App.class)
+                .addInstance(String.class, "str")
+                .addInstance(Types.of(List.class, String.class), List.of("str"))
+                .build();
+        var repository = provider.getRepository();
+        assertAll(
+                () -> assertInstanceOf(FrozenServiceRepository.class, repository),
+                () -> assertEquals("str", provider.get(String.class)),
+                () -> assertEquals("str", provider.get((Type) String.class)),
+                () -> assertEquals(List.of("str"), provider.get(Types.of(List.class, String.class))),
+                () -> assertNull(provider.get(Integer.class)),
+                () -> assertNotNull(repository.get(App.class)),
+                () -> assertNotNull(repository.get(Service.class)),
+                () -> assertThrows(UnsupportedOperationException.class, () -> repository.remove(App.class))
+        );
+    }
+
+    @Test
+    public void testSchemeProvider() {
+        var lifetimes = new HashMap<Type, Lifetime>();
+        var schemes = new HashMap<Type, Class<?>>();
+        StubFactory factory = (scheme, provider) -> {
+            var found = (SchemeProvider) provider;
+            for (var type : scheme.getTypes()) {
+                lifetimes.put(type, found.getLifetime(type));
+                var dependency = found.getScheme(type);
+                schemes.put(type, dependency == null ? null : dependency.getTarget());
+            }
+            return () -> null;
+        };
+        ProviderBuilders.createChecked(factory)
+                .addTransient(Service.class)
+                .addSingleton(Service2.class)
+                .addInstance(String.class, "str")
+                .addTransient(ManualApp.class)
+                .build();
+        assertAll(
+                () -> assertEquals(Lifetime.TRANSIENT, lifetimes.get(Service.class)),
+                () -> assertEquals(Service.class, schemes.get(Service.class)),
+                () -> assertEquals(Lifetime.SINGLETON, lifetimes.get(Service2.class)),
+                () -> assertEquals(Service2.class, schemes.get(Service2.class))
+        );
+        lifetimes.clear();
+        ProviderBuilders.createChecked(factory)
+                .addService(Service.class, s -> s)
+                .addService(Service2.class, () -> new Service2(new Service()))
+                .addTransient(ManualApp.class)
+                .build();
+        assertAll(
+                () -> assertEquals(Lifetime.CUSTOM, lifetimes.get(Service.class)),
+                () -> assertNull(lifetimes.get(Service2.class)),
+                () -> assertNull(schemes.get(Service2.class))
+        );
+    }
+
+    @Test
+    public void testEagerInit() {
+        var order = Collections.synchronizedList(new ArrayList<Class<?>>());
+        var reported = new HashMap<Type, Long>();
+        StubFactory factory = (scheme, provider) -> () -> {
+            order.add(scheme.getTarget());
+            return new Object();
+        };
+        var pool = Executors.newFixedThreadPool(2);
+        var provider = new CheckedProviderBuilder(ProviderBuilders.REFLECTION_FACTORY, factory)
+                .setEagerInit(pool, reported::put)
+                .addSingleton(Service.class)
+                .addSingleton(Service2.class)
+                .addTransient(ManualApp.class)
+                .build();
+        pool.shutdown();
+        assertAll(
+                () -> assertEquals(List.of(Service.class, Service2.class), order),
+                () -> assertEquals(Set.of(Service.class, Service2.class), reported.keySet()),
+                () -> assertTrue(((SingletonFunction0<?>) provider.getRepository().get(Service.class)).isInitialized())
+        );
+        // Errors are propagated from the build
+        StubFactory failing = (scheme, types) -> () -> {
+            throw new IllegalStateException();
+        };
+        assertThrows(IllegalStateException.class, () -> new CheckedProviderBuilder(
+                ProviderBuilders.REFLECTION_FACTORY,
+                failing
+        ).setEagerInit(true).addSingleton(Service.class).build());
+    }
+
+    @Test
+    public void testParallelSchemes() {
+        var schemes = new ConcurrentHashMap<Class<?>, ClassScheme>();
+        StubFactory factory = (scheme, provider) -> {
+            schemes.put(scheme.getTarget(), scheme);
+            return () -> null;
+        };
+        var pool = Executors.newFixedThreadPool(4);
+        try {
+            new CheckedProviderBuilder(ProviderBuilders.REFLECTION_FACTORY, factory)
+                    .setSchemeExecutor(pool)
+                    .addTransient(Service.class)
+                    .addSingleton(Service2.class)
+                    .addTransient(ManualApp.class)
+                    .build();
+            assertEquals(Set.of(Service.class, Service2.class, ManualApp.class), schemes.keySet());
+            assertEquals(Set.of(Service.class), schemes.get(Service2.class).getTypes());
+            assertThrows(IllegalClassException.class, () -> new CheckedProviderBuilder(
+                    ProviderBuilders.REFLECTION_FACTORY,
+                    factory
+            ).setSchemeExecutor(pool).addTransient(Service.class).addTransient(Runnable.class).build());
+            // The first error by registration order is reported
+            var invalid = List.<Class<?>>of(Runnable.class, Callable.class, Comparable.class, Iterable.class);
+            for (var i = 0; i < invalid.size(); ++i) {
+                var builder = new CheckedProviderBuilder(ProviderBuilders.REFLECTION_FACTORY, factory)
+                        .setSchemeExecutor(pool);
+                for (var j = 0; j < invalid.size(); ++j) {
+                    builder.addTransient(invalid.get((i + j) % invalid.size()));
+                }
+                var e = assertThrows(IllegalClassException.class, builder::build);
+                assertEquals(invalid.get(i), e.getClazz());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static StubFactory constructing(Collection<Class<?>> created) {
+        return (scheme, provider) -> {
+            created.add(scheme.getTarget());
+            var constructor = scheme.getConstructorScheme();
+            var providers = Arrays
+                    .stream(constructor.getMapping())
+                    .map(provider::apply)
+                    .toArray(Function0[]::new);
+            return () -> {
+                var arguments = new Object[providers.length];
+                for (var i = 0; i < arguments.length; ++i) {
+                    arguments[i] = providers[i].invoke();
+                }
+                return constructor.getTarget().newInstance(arguments);
+            };
+        };
+    }
+
+    @Test
+    public void testLazyBuild() throws Exception {
+        var schemes = ConcurrentHashMap.<Class<?>>newKeySet();
+        var created = Collections.synchronizedList(new ArrayList<Class<?>>());
+        var provider = new CheckedProviderBuilder(clazz -> {
+            schemes.add(clazz);
+            return ProviderBuilders.REFLECTION_FACTORY.create(clazz);
+        }, constructing(created))
+                .setLazy(true)
+                .addTransient(Service.class)
+                .addSingleton(Service2.class)
+                .addTransient(ManualApp.class)
+                .addTransient(CycleService.class)
+                .addTransient(CycleApp.class)
+                .build();
+        // Nothing is done until the first resolution, so the cycle is not found yet
+        assertTrue(schemes.isEmpty());
+        assertNotNull(provider.get(Service2.class));
+        assertEquals(Set.of(Service.class, Service2.class), schemes);
+        assertSame(provider.get(Service2.class), provider.get(Service2.class));
+        var cycle = assertThrows(CycleFoundException.class, () -> provider.get(CycleApp.class));
+        assertEquals(Set.of(CycleApp.class, CycleService.class), Set.copyOf(cycle.getCycle()));
+        // Concurrent resolutions build the type only once
+        var pool = Executors.newFixedThreadPool(4);
+        for (var i = 0; i < 100; ++i) {
+            pool.execute(() -> assertNotNull(provider.get(ManualApp.class)));
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(List.of(Service2.class, Service.class, ManualApp.class), created);
+        // Missing types are reported on the first resolution
+        var missing = new CheckedProviderBuilder(ProviderBuilders.REFLECTION_FACTORY, constructing(created))
+                .setLazy(true)
+                .addTransient(App.class)
+                .build();
+        assertThrows(TypeNotFoundException.class, () -> missing.get(App.class));
+        var manual = new ManualCheckedProviderBuilder(ProviderBuilders.REFLECTION_FACTORY, constructing(created))
+                .setLazy(true)
+                .addManual(Service.class, types -> Service::new)
+                .addTransient(App.class)
+                .build();
+        assertNotNull(manual.get(App.class).service);
+        assertThrows(IllegalStateException.class, () -> new CheckedProviderBuilder(
+                ProviderBuilders.REFLECTION_FACTORY,
+                BYTECODE_FACTORY
+        ).setLazy(true).setEagerInit(true).build());
+    }
+
+    @Test
+    public void testDeferredDependencies() throws Throwable {
+        for (var lazy : List.of(false, true)) {
+            var created = new ArrayList<Class<?>>();
+            var provider = new CheckedProviderBuilder(ProviderBuilders.REFLECTION_FACTORY, constructing(created))
+                    .setLazy(lazy)
+                    .addSingleton(DeferredApp.class)
+                    .addSingleton(DeferredService.class)
+                    .build();
+            // The deferred dependency does not form a cycle, and its supplier is injected without instantiation
+            var app = provider.get(DeferredApp.class);
+            assertEquals(0, app.instances);
+            var service = app.service.invoke();
+            assertSame(app, service.app);
+            assertSame(service, app.service.invoke());
+            assertEquals(1, app.instances);
+        }
+        // The supplied type must still be registered
+        var missing = new CheckedProviderBuilder(ProviderBuilders.REFLECTION_FACTORY, constructing(new ArrayList<>()))
+                .addTransient(DeferredApp.class);
+        var thrown = assertThrows(TypeNotFoundException.class, missing::build);
+        assertEquals(Types.of(Function0.class, DeferredService.class), thrown.getType());
+    }
+
+    @Test
+    public void testMultiBindings() {
+        for (var lazy : List.of(false, true)) {
+            var provider = new CheckedProviderBuilder(ProviderBuilders.REFLECTION_FACTORY, constructing(new ArrayList<>()))
+                    .setLazy(lazy)
+                    .addSingleton(FirstFilter.class)
+                    .addTransient(SecondFilter.class)
+                    .addToList(Filter.class, SecondFilter.class)
+                    .addToList(Filter.class, FirstFilter.class)
+                    .addToSet(Filter.class, FirstFilter.class)
+                    .addToSet(Filter.class, FirstFilter.class)
+                    .addTransient(FilterChain.class)
+                    .build();
+            var chain = provider.get(FilterChain.class);
+            assertEquals(2, chain.list.size());
+            assertInstanceOf(SecondFilter.class, chain.list.get(0));
+            assertSame(provider.get(FirstFilter.class), chain.list.get(1));
+            assertEquals(Set.of(provider.get(FirstFilter.class)), chain.set);
+            assertThrows(UnsupportedOperationException.class, () -> chain.list.add(null));
+            // The list is assembled on each resolution, the element lifetimes are preserved
+            var other = provider.get(FilterChain.class);
+            assertNotSame(chain.list.get(0), other.list.get(0));
+            assertSame(chain.list.get(1), other.list.get(1));
+        }
+        // The explicitly registered collection takes precedence
+        var list = List.<Filter>of();
+        var explicit = new CheckedProviderBuilder(ProviderBuilders.REFLECTION_FACTORY, constructing(new ArrayList<>()))
+                .addToList(Filter.class, FirstFilter.class)
+                .addInstance(Types.of(List.class, Filter.class), list)
+                .addToSet(Filter.class, SecondFilter.class)
+                .addTransient(SecondFilter.class)
+                .addTransient(FilterChain.class)
+                .build();
+        assertSame(list, explicit.get(FilterChain.class).list);
+        var missing = new CheckedProviderBuilder(ProviderBuilders.REFLECTION_FACTORY, constructing(new ArrayList<>()))
+                .addToList(Filter.class, FirstFilter.class)
+                .addToSet(Filter.class, FirstFilter.class)
+                .addTransient(FilterChain.class);
+        var thrown = assertThrows(TypeNotFoundException.class, missing::build);
+        assertEquals(FirstFilter.class, thrown.getType());
+        assertThrows(IllegalArgumentException.class, () -> CHECKED_BUILDER.addToList(Filter.class, Service.class));
+    }
+
+    @Test
+    public void testChildProvider() {
+        for (var lazy : List.of(false, true)) {
+            var schemes = ConcurrentHashMap.<Class<?>>newKeySet();
+            var parent = new CheckedProviderBuilder(clazz -> {
+                schemes.add(clazz);
+                return ProviderBuilders.REFLECTION_FACTORY.create(clazz);
+            }, constructing(new ArrayList<>()))
+                    .setLazy(lazy)
+                    .setFrozen(lazy)
+                    .addSingleton(Service.class)
+                    .addTransient(App.class)
+                    .addScoped(ScopedService.class)
+                    .build();
+            var service = parent.get(Service.class);
+            var override = new Service();
+            schemes.clear();
+            var child = parent.createChild(builder -> builder
+                    .addTransient(Service2.class)
+                    .addTransient(ScopedApp.class)
+                    .addInstance(Service.class, override));
+            // Only the child services are built, the rest is shared with the parent
+            assertEquals(lazy ? Set.of() : Set.of(Service2.class, ScopedApp.class), schemes);
+            assertSame(override, child.get(Service.class));
+            assertNotNull(child.get(Service2.class));
+            assertSame(service, child.get(App.class).service);
+            assertNull(parent.get(Service2.class));
+            assertSame(service, parent.get(Service.class));
+            assertThrows(IllegalStateException.class, () -> child.get(ScopedService.class));
+            // The scope of the child holds the scoped services of the parent
+            try (var scope = child.createScope()) {
+                assertSame(scope.get(ScopedService.class), scope.get(ScopedApp.class).service);
+            }
+            // Grandchildren inherit from the whole chain
+            var grandchild = child.createChild(builder -> builder.addTransient(ManualApp.class));
+            assertNotNull(grandchild.get(ManualApp.class));
+        }
+        var parent = ProviderBuilders.createChecked(ProviderBuilders.REFLECTION_FACTORY, constructing(new ArrayList<>()))
+                .addTransient(Service.class)
+                .build();
+        // The child services are validated against the parent
+        assertNotNull(parent.createChild(builder -> builder.addTransient(App.class)).get(App.class));
+        assertThrows(TypeNotFoundException.class, () -> parent.createChild(
+                builder -> builder.addTransient(ManualApp.class)
+        ));
+        assertThrows(CycleFoundException.class, () -> parent.createChild(
+                builder -> builder.addTransient(CycleApp.class).addTransient(CycleService.class)
+        ));
+    }
+
+    @Test
+    public void testLifetimeMismatch() {
+        for (var lazy : List.of(false, true)) {
+            var direct = new CheckedProviderBuilder(ProviderBuilders.REFLECTION_FACTORY, constructing(new ArrayList<>()))
+                    .setLazy(lazy)
+                    .addScoped(ScopedService.class)
+                    .addSingleton(ScopedApp.class);
+            var indirect = new CheckedProviderBuilder(ProviderBuilders.REFLECTION_FACTORY, constructing(new ArrayList<>()))
+                    .setLazy(lazy)
+                    .addScoped(ScopedService.class)
+                    .addTransient(ScopedApp.class)
+                    .addSingleton(CapturingApp.class);
+            if (lazy) {
+                // The lazy build reports the errors on the first resolution
+                var first = direct.build();
+                var second = indirect.build();
+                assertThrows(LifetimeMismatchException.class, () -> first.get(ScopedApp.class));
+                assertThrows(LifetimeMismatchException.class, () -> second.get(CapturingApp.class));
+                continue;
+            }
+            var e = assertThrows(LifetimeMismatchException.class, direct::build);
+            assertEquals(ScopedApp.class, e.getType());
+            assertEquals(ScopedService.class, e.getScoped());
+            // The scoped service flows through the transient one
+            e = assertThrows(LifetimeMismatchException.class, indirect::build);
+            assertEquals(CapturingApp.class, e.getType());
+            assertEquals(ScopedService.class, e.getScoped());
+        }
+        // The supplier of the scoped service would not be bound to the scope it was injected from
+        var deferred = assertThrows(LifetimeMismatchException.class, () -> new CheckedProviderBuilder(
+                ProviderBuilders.REFLECTION_FACTORY, constructing(new ArrayList<>()))
+                .addScoped(ScopedService.class)
+                .addSingleton(DeferringApp.class)
+                .build());
+        assertEquals(DeferringApp.class, deferred.getType());
+        assertEquals(ScopedService.class, deferred.getScoped());
+        // The eager initialization does not run into the missing scope
+        assertThrows(LifetimeMismatchException.class, () -> new CheckedProviderBuilder(
+                ProviderBuilders.REFLECTION_FACTORY, constructing(new ArrayList<>()))
+                .setEagerInit(true)
+                .addScoped(ScopedService.class)
+                .addSingleton(ScopedApp.class)
+                .build());
+        // The check can be disabled
+        var unchecked = new CheckedProviderBuilder(
+                ProviderBuilders.REFLECTION_FACTORY,
+                constructing(new ArrayList<>()),
+                CheckedProviderBuilder.VALIDATE_CYCLES | CheckedProviderBuilder.VALIDATE_MISSING_TYPES)
+                .addScoped(ScopedService.class)
+                .addSingleton(ScopedApp.class)
+                .build();
+        try (var scope = unchecked.createScope()) {
+            assertNotNull(scope.get(ScopedApp.class));
+        }
+    }
+
+    @Test
+    public void testIncrementalRebuild() {
+        for (var lazy : List.of(false, true)) {
+            var schemes = ConcurrentHashMap.<Class<?>>newKeySet();
+            var base = new CheckedProviderBuilder(clazz -> {
+                schemes.add(clazz);
+                return ProviderBuilders.REFLECTION_FACTORY.create(clazz);
+            }, constructing(new ArrayList<>()))
+                    .setLazy(lazy)
+                    .setRebuildable(true)
+                    .addSingleton(Service.class)
+                    .addSingleton(Service2.class)
+                    .addTransient(App.class)
+                    .addScoped(ScopedService.class)
+                    .addTransient(ScopedApp.class)
+                    .addSingleton(FirstFilter.class)
+                    .addToList(Filter.class, FirstFilter.class)
+                    .addToSet(Filter.class, FirstFilter.class)
+                    .addTransient(FilterChain.class)
+                    .build();
+            var service = base.get(Service.class);
+            var service2 = base.get(Service2.class);
+            var filter = base.get(FirstFilter.class);
+            var override = new Service();
+            schemes.clear();
+            var rebuilt = base.rebuild(builder -> builder
+                    .addInstance(Service.class, override)
+                    .addTransient(ManualApp.class)
+                    .addTransient(SecondFilter.class)
+                    .addToList(Filter.class, SecondFilter.class));
+            // Only the new implementations get their schemes
+            assertEquals(lazy ? Set.of() : Set.of(ManualApp.class, SecondFilter.class), schemes);
+            assertSame(override, rebuilt.get(Service.class));
+            assertSame(override, rebuilt.get(App.class).service);
+            // The dependents of the replaced service are built again
+            assertNotSame(service2, rebuilt.get(Service2.class));
+            assertNotNull(rebuilt.get(ManualApp.class));
+            var chain = rebuilt.get(FilterChain.class);
+            assertEquals(2, chain.list.size());
+            assertInstanceOf(SecondFilter.class, chain.list.get(1));
+            assertEquals(Set.of(rebuilt.get(FirstFilter.class)), chain.set);
+            if (lazy) {
+                // The lazy rebuild resets the singletons, even if they have already been created
+                assertNotSame(filter, rebuilt.get(FirstFilter.class));
+            } else {
+                // The unaffected singletons are shared
+                assertSame(filter, rebuilt.get(FirstFilter.class));
+            }
+            try (var scope = rebuilt.createScope()) {
+                assertSame(scope.get(ScopedService.class), scope.get(ScopedApp.class).service);
+            }
+            // The base provider remains unchanged
+            assertSame(service, base.get(Service.class));
+            assertSame(service2, base.get(Service2.class));
+            assertNull(base.get(ManualApp.class));
+            assertEquals(1, base.get(FilterChain.class).list.size());
+        }
+        var base = new CheckedProviderBuilder(ProviderBuilders.REFLECTION_FACTORY, constructing(new ArrayList<>()))
+                .setRebuildable(true)
+                .addTransient(Service.class)
+                .build();
+        // The affected services are validated
+        assertThrows(TypeNotFoundException.class, () -> base.rebuild(
+                builder -> builder.addTransient(ManualApp.class)
+        ));
+        assertThrows(CycleFoundException.class, () -> base.rebuild(
+                builder -> builder.addTransient(CycleApp.class).addTransient(CycleService.class)
+        ));
+        var rebuilt = base.rebuild(builder -> builder.addTransient(Service2.class).addTransient(ManualApp.class));
+        assertNotNull(rebuilt.get(ManualApp.class));
+        // The rebuild support must be enabled explicitly
+        var plain = ProviderBuilders.createChecked(ProviderBuilders.REFLECTION_FACTORY, constructing(new ArrayList<>()))
+                .addTransient(Service.class)
+                .build();
+        assertThrows(UnsupportedOperationException.class, () -> plain.rebuild(builder -> {
+        }));
+    }
+
+    @Test
+    public void testRebuildDeferredDependency() throws Throwable {
+        var base = new CheckedProviderBuilder(ProviderBuilders.REFLECTION_FACTORY, constructing(new ArrayList<>()))
+                .setRebuildable(true)
+                .addSingleton(DeferredApp.class)
+                .addTransient(DeferredService.class)
+                .build();
+        var app = base.get(DeferredApp.class);
+        var replacement = new DeferredService(app);
+        var rebuilt = base.rebuild(builder -> builder.addInstance(DeferredService.class, replacement));
+        // The supplier of the replaced type is bound to the rebuilt provider, so its holder is rebuilt too
+        var rebuiltApp = rebuilt.get(DeferredApp.class);
+        assertNotSame(app, rebuiltApp);
+        assertSame(replacement, rebuiltApp.service.invoke());
+        assertNotSame(replacement, app.service.invoke());
+    }
+
     public static final class Service2 {
         public Service2(Service s) {
             Objects.requireNonNull(s);
@@ -157,4 +630,64 @@ public class ServiceProviderBuilderTest extends Assertions {
         public CycleService(CycleApp app) {
         }
     }
+
+    public static final class DeferredApp {
+        final Function0<DeferredService> service;
+        int instances;
+
+        public DeferredApp(Function0<DeferredService> service) {
+            this.service = Objects.requireNonNull(service);
+        }
+    }
+
+    public static final class DeferredService {
+        final DeferredApp app;
+
+        public DeferredService(DeferredApp app) {
+            this.app = app;
+            ++app.instances;
+        }
+    }
+
+    public interface Filter {
+    }
+
+    public static final class FirstFilter implements Filter {
+    }
+
+    public static final class SecondFilter implements Filter {
+    }
+
+    public static final class FilterChain {
+        final List<Filter> list;
+        final Set<Filter> set;
+
+        public FilterChain(List<Filter> list, Set<Filter> set) {
+            this.list = list;
+            this.set = set;
+        }
+    }
+
+    public static final class ScopedService {
+    }
+
+    public static final class CapturingApp {
+        public CapturingApp(ScopedApp app) {
+            Objects.requireNonNull(app);
+        }
+    }
+
+    public static final class DeferringApp {
+        public DeferringApp(Function0<ScopedService> service) {
+            Objects.requireNonNull(service);
+        }
+    }
+
+    public static final class ScopedApp {
+        final ScopedService service;
+
+        public ScopedApp(ScopedService service) {
+            this.service = service;
+        }
+    }
 }
@@ -0,0 +1,190 @@
+package io.github.amayaframework.di;
+
+import io.github.amayaframework.di.stub.Lifetime;
+import io.github.amayaframework.di.stub.SchemeProvider;
+import io.github.amayaframework.di.stub.StubFactory;
+import io.github.amayaframework.di.stub.TieredStubFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ServiceProviderTest extends Assertions {
+    private static final StubFactory STUB_FACTORY = (scheme, provider) -> () -> null;
+
+    @Test
+    public void testHandle() throws Throwable {
+        var provider = ProviderBuilders.createChecked(STUB_FACTORY)
+                .addInstance(String.class, "1")
+                .build();
+        var handle = provider.handle(String.class);
+        assertEquals("1", handle.invoke());
+        // Replaced entry is resolved again
+        provider.getRepository().add(String.class, () -> "2");
+        assertEquals("2", handle.invoke());
+        // Removed entry fails fast
+        provider.getRepository().remove(String.class);
+        assertThrows(TypeNotFoundException.class, handle::invoke);
+        assertThrows(TypeNotFoundException.class, () -> provider.handle(String.class));
+    }
+
+    @Test
+    public void testCustomRepositoryHandle() throws Throwable {
+        var repository = new HashServiceRepository();
+        var provider = ProviderBuilders.createChecked(STUB_FACTORY)
+                .setRepository(repository)
+                .addInstance(String.class, "1")
+                .build();
+        var handle = provider.handle(String.class);
+        assertEquals("1", handle.invoke());
+        repository.add(String.class, () -> "2");
+        assertEquals("2", handle.invoke());
+        repository.remove(String.class);
+        assertThrows(TypeNotFoundException.class, handle::invoke);
+    }
+
+    @Test
+    public void testScope() {
+        var provider = ProviderBuilders
+                .createChecked((scheme, types) -> () -> scheme.getTarget().getConstructor().newInstance())
+                .addScoped(Object.class)
+                .addTransient(Service.class)
+                .build();
+        var first = provider.createScope();
+        var second = provider.createScope();
+        var value = first.get(Object.class);
+        assertAll(
+                () -> assertNotNull(value),
+                () -> assertSame(value, first.get(Object.class)),
+                () -> assertSame(value, first.handle(Object.class).invoke()),
+                () -> assertNotSame(value, second.get(Object.class)),
+                () -> assertNotSame(first.get(Service.class), first.get(Service.class)),
+                () -> assertThrows(IllegalStateException.class, () -> provider.get(Object.class))
+        );
+        first.close();
+        assertTrue(first.isClosed());
+        assertThrows(IllegalStateException.class, () -> first.get(Object.class));
+        assertNotNull(second.get(Object.class));
+    }
+
+    @Test
+    public void testFrozenHandle() throws Throwable {
+        var provider = new CheckedProviderBuilder(ProviderBuilders.REFLECTION_FACTORY, STUB_FACTORY)
+                .setFrozen(true)
+                .addInstance(String.class, "1")
+                .build();
+        var handle = provider.handle(String.class);
+        assertEquals("1", handle.invoke());
+        assertSame(provider.getRepository().get(String.class), handle);
+        assertThrows(TypeNotFoundException.class, () -> provider.handle(Integer.class));
+    }
+
+    @Test
+    public void testTieredStubFactory() {
+        var tasks = new ArrayList<Runnable>();
+        var tiered = new TieredStubFactory(
+                (scheme, types) -> () -> "initial",
+                (scheme, types) -> () -> "optimized",
+                3,
+                tasks::add
+        );
+        var provider = ProviderBuilders.createChecked(tiered)
+                .addTransient(Service.class)
+                .build();
+        for (var i = 0; i < 5; ++i) {
+            assertEquals("initial", provider.get(Service.class));
+        }
+        // The upgrade is scheduled only once
+        assertEquals(1, tasks.size());
+        tasks.get(0).run();
+        assertEquals("optimized", provider.get(Service.class));
+        assertEquals(1, tiered.getUpgrades());
+        assertEquals(0, tiered.getFailures());
+        // The failed upgrade leaves the initial instantiator
+        var failing = new TieredStubFactory(
+                (scheme, types) -> () -> "initial",
+                (scheme, types) -> {
+                    throw new IllegalStateException();
+                },
+                1,
+                Runnable::run
+        );
+        var stub = failing.create(ProviderBuilders.REFLECTION_FACTORY.create(Service.class), type -> null);
+        assertAll(
+                () -> assertEquals("initial", stub.invoke()),
+                () -> assertEquals("initial", stub.invoke()),
+                () -> assertEquals(0, failing.getUpgrades()),
+                () -> assertEquals(1, failing.getFailures())
+        );
+        // The rejected upgrade does not break the invocation and is retried later
+        var rejecting = new TieredStubFactory(
+                (scheme, types) -> () -> "initial",
+                (scheme, types) -> () -> "optimized",
+                2,
+                task -> {
+                    throw new RejectedExecutionException();
+                }
+        );
+        var rejected = rejecting.create(ProviderBuilders.REFLECTION_FACTORY.create(Service.class), type -> null);
+        for (var i = 0; i < 4; ++i) {
+            assertDoesNotThrow(rejected::invoke);
+        }
+        assertEquals(2, rejecting.getFailures());
+        // The background upgrade does not access the provider
+        var resolutions = new AtomicInteger();
+        tasks.clear();
+        var isolated = new TieredStubFactory(
+                (scheme, types) -> () -> "initial",
+                (scheme, types) -> {
+                    var dependency = types.apply(Service.class);
+                    return () -> dependency.invoke();
+                },
+                1,
+                tasks::add
+        );
+        var scheme = ProviderBuilders.REFLECTION_FACTORY.create(Dependent.class);
+        var dependent = isolated.create(scheme, type -> {
+            resolutions.incrementAndGet();
+            return () -> "dependency";
+        });
+        assertDoesNotThrow(dependent::invoke);
+        var resolved = resolutions.get();
+        tasks.get(0).run();
+        assertEquals(resolved, resolutions.get());
+        assertAll(
+                () -> assertEquals("dependency", dependent.invoke()),
+                () -> assertEquals(1, isolated.getUpgrades())
+        );
+        // The optimized factory receives the schemes and lifetimes of the dependencies
+        tasks.clear();
+        var inlining = new TieredStubFactory(
+                (target, types) -> () -> "initial",
+                (target, types) -> {
+                    var schemes = (SchemeProvider) types;
+                    var lifetime = schemes.getLifetime(Service.class);
+                    var found = schemes.getScheme(Service.class);
+                    return () -> found == null ? null : lifetime;
+                },
+                1,
+                tasks::add
+        );
+        var inlined = ProviderBuilders.createChecked(inlining)
+                .addTransient(Service.class)
+                .addTransient(Dependent.class)
+                .build();
+        assertEquals("initial", inlined.get(Dependent.class));
+        tasks.forEach(Runnable::run);
+        assertEquals(Lifetime.TRANSIENT, inlined.get(Dependent.class));
+        assertThrows(IllegalArgumentException.class, () -> new TieredStubFactory(tiered, tiered, 0));
+    }
+
+    public static final class Dependent {
+        public Dependent(Service service) {
+        }
+    }
+
+    public static final class Service {
+    }
+}
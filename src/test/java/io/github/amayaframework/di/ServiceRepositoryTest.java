@@ -0,0 +1,115 @@
+package io.github.amayaframework.di;
+
+import com.github.romanqed.jfunc.Function0;
+import com.github.romanqed.jtype.Types;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Type;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class ServiceRepositoryTest extends Assertions {
+    private static final Type[] TYPES = {
+            String.class,
+            Integer.class,
+            Types.of(List.class, String.class),
+            Types.of(Map.class, String.class, Types.of(List.class, Integer.class)),
+            Types.of(Set.class, Types.of(String.class))
+    };
+
+    private static ServiceRepository fill(ServiceRepository repository, Type[] types) {
+        for (var type : types) {
+            repository.add(type, () -> type);
+        }
+        return repository;
+    }
+
+    @Test
+    public void testFrozenLookup() throws Throwable {
+        var repository = new FrozenServiceRepository(fill(new HashServiceRepository(), TYPES));
+        assertEquals(TYPES.length, repository.size());
+        for (var type : TYPES) {
+            var slot = repository.indexOf(type);
+            assertTrue(slot >= 0);
+            assertTrue(repository.contains(type));
+            assertEquals(type, repository.get(type).invoke());
+            assertSame(repository.get(type), repository.get(slot));
+        }
+        // Equal, but not identical keys
+        assertEquals(
+                Types.of(List.class, String.class),
+                repository.get(Types.of(List.class, String.class)).invoke()
+        );
+        assertNull(repository.get(Long.class));
+        assertFalse(repository.contains(Types.of(List.class, Long.class)));
+        assertEquals(-1, repository.indexOf(Object.class));
+    }
+
+    @Test
+    public void testFrozenCollisions() throws Throwable {
+        var types = new Type[64];
+        for (var i = 0; i < types.length; ++i) {
+            types[i] = new CollidingType(i);
+        }
+        var repository = new FrozenServiceRepository(fill(new HashServiceRepository(), types));
+        for (var type : types) {
+            assertEquals(type, repository.get(type).invoke());
+        }
+        assertNull(repository.get(new CollidingType(-1)));
+    }
+
+    @Test
+    public void testFrozenIteration() {
+        var repository = new FrozenServiceRepository(fill(new HashServiceRepository(), TYPES));
+        var found = new HashSet<Type>();
+        repository.forEach(found::add);
+        assertEquals(Set.of(TYPES), found);
+        var entries = new HashSet<Type>();
+        repository.forEach((type, supplier) -> entries.add(type));
+        assertEquals(Set.of(TYPES), entries);
+    }
+
+    @Test
+    public void testFrozenImmutability() {
+        var repository = new FrozenServiceRepository(fill(new HashServiceRepository(), TYPES));
+        Function0<Object> supplier = () -> null;
+        assertAll(
+                () -> assertThrows(UnsupportedOperationException.class, () -> repository.add(Long.class, supplier)),
+                () -> assertThrows(UnsupportedOperationException.class, () -> repository.remove(String.class)),
+                () -> assertThrows(UnsupportedOperationException.class, repository::clear),
+                () -> assertThrows(UnsupportedOperationException.class, () -> {
+                    var iterator = repository.iterator();
+                    iterator.next();
+                    iterator.remove();
+                })
+        );
+    }
+
+    @Test
+    public void testFrozenEmpty() {
+        var repository = new FrozenServiceRepository(new HashServiceRepository());
+        assertEquals(0, repository.size());
+        assertNull(repository.get(String.class));
+    }
+
+    private static final class CollidingType implements Type {
+        final int id;
+
+        CollidingType(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CollidingType && ((CollidingType) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return id % 4;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package io.github.amayaframework.di;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SingletonTest extends Assertions {
+    private static final int THREADS = 64;
+
+    @Test
+    public void testConcurrentInit() throws Throwable {
+        var calls = new AtomicInteger();
+        var function = new SingletonFunction0<>(() -> {
+            calls.incrementAndGet();
+            // Give other threads a chance to stampede
+            Thread.sleep(50);
+            return new Object();
+        });
+        var pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            var start = new CountDownLatch(1);
+            var futures = new ArrayList<Future<Object>>();
+            for (var i = 0; i < THREADS; ++i) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        return function.invoke();
+                    } catch (Throwable e) {
+                        throw new ExecutionException(e);
+                    }
+                }));
+            }
+            start.countDown();
+            var expected = futures.get(0).get();
+            for (var future : futures) {
+                assertSame(expected, future.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(1, calls.get());
+        assertTrue(function.isInitialized());
+    }
+
+    @Test
+    public void testReadWithoutLock() throws Throwable {
+        var function = new SingletonFunction0<>(Object::new);
+        var expected = function.invoke();
+        var locked = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var holder = new Thread(() -> {
+            synchronized (function) {
+                locked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        holder.start();
+        locked.await();
+        try {
+            // The monitor is held by another thread, so the read must not touch it
+            var reader = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return function.invoke();
+                } catch (Throwable e) {
+                    throw new CompletionException(e);
+                }
+            });
+            assertSame(expected, reader.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            holder.join();
+        }
+    }
+
+    @Test
+    public void testNullValue() throws Throwable {
+        var calls = new AtomicInteger();
+        var function = new SingletonFunction0<>(() -> {
+            calls.incrementAndGet();
+            return null;
+        });
+        assertNull(function.invoke());
+        assertNull(function.invoke());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testFailureRetry() throws Throwable {
+        var calls = new AtomicInteger();
+        var function = new SingletonFunction0<>(() -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new IllegalStateException();
+            }
+            return "value";
+        });
+        assertThrows(IllegalStateException.class, function::invoke);
+        assertFalse(function.isInitialized());
+        assertEquals("value", function.invoke());
+        assertEquals("value", function.invoke());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testFailureCache() {
+        var calls = new AtomicInteger();
+        var function = new SingletonFunction0<>(() -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException();
+        }, true);
+        assertThrows(IllegalStateException.class, function::invoke);
+        assertThrows(IllegalStateException.class, function::invoke);
+        assertTrue(function.isInitialized());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testDefaultSingleton() {
+        var provider = ProviderBuilders.createChecked((scheme, types) -> Object::new)
+                .addSingleton(Object.class)
+                .build();
+        assertInstanceOf(SingletonFunction0.class, provider.getRepository().get(Object.class));
+        assertSame(provider.get(Object.class), provider.get(Object.class));
+    }
+}